@@ -0,0 +1,60 @@
+package com.devoxx;
+
+import com.amazonaws.services.lambda.runtime.events.SQSEvent;
+import com.fasterxml.jackson.core.JsonProcessingException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+// Synthetic SQS events shaped like src/test/resources/events/event1.json
+public class BenchmarkEvents {
+
+    public static String itemBody(int index) {
+        try {
+            return ItemJson.WRITER.writeValueAsString(new Item(UUID.randomUUID().toString(),
+                    "devoxx-" + (index % 10), "Monitor " + index, 999.99, index));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public static SQSEvent sqsEvent(int records) {
+        List<SQSEvent.SQSMessage> messages = new ArrayList<>(records);
+        for (int i = 0; i < records; i++) {
+            SQSEvent.SQSMessage message = new SQSEvent.SQSMessage();
+            message.setMessageId(UUID.randomUUID().toString());
+            message.setBody(itemBody(i));
+            messages.add(message);
+        }
+        SQSEvent event = new SQSEvent();
+        event.setRecords(messages);
+        return event;
+    }
+
+    // The raw payload the Lambda runtime hands to a RequestStreamHandler
+    public static byte[] sqsEventJson(SQSEvent event) {
+        StringBuilder json = new StringBuilder("{\"Records\":[");
+        for (int i = 0; i < event.getRecords().size(); i++) {
+            SQSEvent.SQSMessage message = event.getRecords().get(i);
+            try {
+                json.append(i == 0 ? "" : ",")
+                        .append("{\"messageId\":\"").append(message.getMessageId()).append("\",")
+                        .append("\"receiptHandle\":\"12345678\",")
+                        .append("\"body\":").append(ItemJson.MAPPER.writeValueAsString(message.getBody())).append(",")
+                        .append("\"attributes\":{\"ApproximateReceiveCount\":\"1\",\"SentTimestamp\":\"1763026580\"},")
+                        .append("\"messageAttributes\":{},")
+                        .append("\"eventSource\":\"aws:sqs\",")
+                        .append("\"eventSourceARN\":\"arn:aws:sqs:eu-west-1:111122223333:ItemQueue\",")
+                        .append("\"awsRegion\":\"eu-west-1\"}");
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        return json.append("]}").toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private BenchmarkEvents() {
+    }
+}
@@ -0,0 +1,95 @@
+package com.devoxx;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Parse throughput per item of message bodies with 10 items in every encoding, base64 in the body and raw
+// in the payload attribute, against ObjectMapper.readValue of pretty printed single item bodies as in
+// events/event1.json. Bytes per item of every encoding are printed when the trial starts.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dlog4j2.configurationFile=log4j2-benchmark.xml")
+public class BodyEncodingBenchmark {
+
+    private static final int ITEMS = 10;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final List<String> prettyBodies = new ArrayList<>();
+
+    @Setup
+    public void setup() throws Exception {
+        for (Item item : items()) {
+            prettyBodies.add(objectMapper.writerWithDefaultPrettyPrinter().writeValueAsString(item));
+        }
+        System.out.printf("%n%-28s %6d bytes per item%n", "pretty JSON",
+                prettyBodies.stream().mapToInt(String::length).sum() / ITEMS);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ITEMS)
+    public int prettyJsonObjectMapper() throws Exception {
+        int quantity = 0;
+        for (String body : prettyBodies) {
+            quantity += objectMapper.readValue(body, Item.class).getQuantity();
+        }
+        return quantity;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ITEMS)
+    public List<Item> decodeBody(Encoded encoded) throws Exception {
+        return ItemBodyDecoder.decode(encoded.bodyMessage);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ITEMS)
+    public List<Item> decodePayload(Encoded encoded) throws Exception {
+        return ItemBodyDecoder.decode(encoded.payloadMessage);
+    }
+
+    @State(Scope.Benchmark)
+    public static class Encoded {
+
+        @Param({"JSON", "SMILE", "CBOR"})
+        public ItemContentType contentType;
+
+        ItemMessage bodyMessage;
+        ItemMessage payloadMessage;
+
+        @Setup
+        public void setup() throws Exception {
+            String body = ItemEncoder.encodeBody(items(), contentType);
+            byte[] payload = ItemEncoder.encode(items(), contentType);
+            bodyMessage = new ItemMessage("body", body, contentType.mimeType(), null);
+            payloadMessage = new ItemMessage("payload", "-", contentType.mimeType(), payload);
+            System.out.printf("%n%-28s %6d bytes per item in the body, %d in the payload attribute%n",
+                    contentType.mimeType(), body.length() / ITEMS, payload.length / ITEMS);
+        }
+    }
+
+    private static List<Item> items() throws Exception {
+        List<Item> items = new ArrayList<>();
+        for (int i = 0; i < ITEMS; i++) {
+            items.add(ItemJson.READER.readValue(BenchmarkEvents.itemBody(i)));
+        }
+        return items;
+    }
+}
@@ -0,0 +1,256 @@
+package com.devoxx;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+// Cold start numbers for the handler: every run forks a fresh JVM with ColdStartProbe and measures
+// - init: process spawn until the handler is constructed (or restored), what Lambda bills as Init Duration
+// - constructor: the handler constructor alone, AwsSdkClientUtil and class loading included
+// - first/last: first and last invocation with the test event
+// - rss: peak resident set size of the process
+// for the InfraStack JVM options (C1 only) against full C2, with AppCDS and with a CRaC checkpoint when available.
+// The native executable (mvn package -Pnative) runs its own bootstrap loop against RuntimeApiStub instead, its init
+// ends with the first poll for an event and includes the constructor.
+//
+// java -cp devoxx-lambda-benchmarks/target/benchmarks.jar com.devoxx.ColdStartHarness [runs=20] [invocations=10]
+//      [handler=com.devoxx.DevoxxLambda] [event=devoxx-lambda-processor/src/test/resources/events/event1.json]
+//      [java=<java executable, e.g. of a CRaC JDK>] [native=devoxx-lambda-processor/target/devoxxlambda-native]
+public class ColdStartHarness {
+
+    // Same as JAVA_TOOL_OPTIONS in InfraStack
+    private static final List<String> C1 = List.of("-XX:+TieredCompilation", "-XX:TieredStopAtLevel=1");
+    private static final List<String> C2 = List.of("-XX:+TieredCompilation");
+
+    private final Map<String, String> options;
+    private final Path workDir;
+    private final String endpoint;
+
+    ColdStartHarness(Map<String, String> options, Path workDir, String endpoint) {
+        this.options = options;
+        this.workDir = workDir;
+        this.endpoint = endpoint;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            String[] option = arg.split("=", 2);
+            options.put(option[0], option.length > 1 ? option[1] : "");
+        }
+        Path workDir = Files.createTempDirectory("coldstart");
+        try (DynamoDbStubServer dynamoDb = new DynamoDbStubServer()) {
+            new ColdStartHarness(options, workDir, dynamoDb.endpoint()).run();
+        }
+    }
+
+    void run() throws Exception {
+        int runs = Integer.parseInt(options.getOrDefault("runs", "20"));
+        System.out.printf("%-14s %5s %9s %9s %9s %9s %9s %9s %9s%n",
+                "variant", "runs", "init p50", "init p99", "ctor p50", "1st p50", "1st p99", "last p50", "rss MB");
+
+        report("C1", measure(runs, C1, probe(false)));
+        report("C2", measure(runs, C2, probe(false)));
+
+        Path archive = createCdsArchive();
+        if (archive != null) {
+            List<String> cds = List.of("-XX:SharedArchiveFile=" + archive);
+            report("C1 + AppCDS", measure(runs, concat(C1, cds), probe(false)));
+            report("C2 + AppCDS", measure(runs, concat(C2, cds), probe(false)));
+        } else {
+            System.out.println("AppCDS        skipped, the JDK could not dump a dynamic archive for this classpath");
+        }
+
+        Path checkpoint = createCracCheckpoint();
+        if (checkpoint != null) {
+            report("C1 + CRaC", measure(runs, List.of("-XX:CRaCRestoreFrom=" + checkpoint), List.of()));
+        } else {
+            System.out.println("CRaC          skipped, the JDK does not support -XX:CRaCCheckpointTo");
+        }
+
+        if (options.containsKey("native")) {
+            report("native", measureNative(runs, Path.of(options.get("native"))));
+        }
+    }
+
+    // The first run of every variant only warms the page cache and is not reported
+    private List<Result> measure(int runs, List<String> jvmArgs, List<String> probe) throws Exception {
+        List<Result> results = new ArrayList<>(runs);
+        for (int i = 0; i <= runs; i++) {
+            Result result = fork(concat(jvmArgs, probe));
+            if (i > 0) {
+                results.add(result);
+            }
+        }
+        return results;
+    }
+
+    private List<Result> measureNative(int runs, Path executable) throws Exception {
+        byte[] event = Files.readAllBytes(Path.of(options.getOrDefault("event",
+                "devoxx-lambda-processor/src/test/resources/events/event1.json")));
+        int invocations = Integer.parseInt(options.getOrDefault("invocations", "10"));
+        List<Result> results = new ArrayList<>(runs);
+        for (int i = 0; i <= runs; i++) {
+            Result result = forkNative(executable, event, invocations);
+            if (i > 0) {
+                results.add(result);
+            }
+        }
+        return results;
+    }
+
+    private Result forkNative(Path executable, byte[] event, int invocations) throws Exception {
+        try (RuntimeApiStub runtimeApi = new RuntimeApiStub(event, invocations)) {
+            ProcessBuilder builder = new ProcessBuilder(executable.toString())
+                    .redirectErrorStream(true)
+                    .redirectOutput(ProcessBuilder.Redirect.DISCARD);
+            builder.environment().putAll(Map.of(
+                    "AWS_LAMBDA_RUNTIME_API", runtimeApi.address(),
+                    "_HANDLER", options.getOrDefault("handler", DevoxxLambda.class.getName()),
+                    "ENDPOINT", endpoint,
+                    "AWS_REGION", "eu-central-1",
+                    "AWS_ACCESS_KEY_ID", "test",
+                    "AWS_SECRET_ACCESS_KEY", "test",
+                    "IDEMPOTENCY_CACHE_SIZE", "0"));
+            long spawned = System.currentTimeMillis();
+            Process process = builder.start();
+            try {
+                if (!runtimeApi.await(2, TimeUnit.MINUTES)) {
+                    throw new IllegalStateException("Native executable did not answer " + invocations + " invocations");
+                }
+                // Waits for the next event now, the process is still there
+                long rssKb = ColdStartProbe.peakRssKb(String.valueOf(process.pid()));
+                return new Result(runtimeApi.firstPollMillis() - spawned, 0,
+                        runtimeApi.invocationNanos(0) / 1_000_000.0,
+                        runtimeApi.invocationNanos(invocations - 1) / 1_000_000.0, rssKb / 1024.0);
+            } finally {
+                process.destroyForcibly().waitFor();
+            }
+        }
+    }
+
+    private Path createCdsArchive() throws Exception {
+        Path archive = workDir.resolve("coldstart.jsa");
+        execute(concat(concat(C1, List.of("-XX:ArchiveClassesAtExit=" + archive)), probe(false)));
+        return Files.exists(archive) ? archive : null;
+    }
+
+    private Path createCracCheckpoint() throws Exception {
+        Path checkpoint = workDir.resolve("crac");
+        if (execute(List.of("-XX:CRaCCheckpointTo=" + checkpoint, "-version")).exitCode() != 0) {
+            return null;
+        }
+        // The checkpointed JVM is killed once the image is written
+        execute(concat(concat(C1, List.of("-XX:CRaCCheckpointTo=" + checkpoint)), probe(true)));
+        try (var files = Files.list(checkpoint)) {
+            return files.findAny().isPresent() ? checkpoint : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private List<String> probe(boolean checkpoint) {
+        List<String> probe = new ArrayList<>(List.of(
+                // Same collector and class data sharing as the Lambda Java runtime
+                "-XX:+UseSerialGC",
+                "-Xshare:auto",
+                "-DENDPOINT=" + endpoint,
+                "-DAWS_REGION=eu-central-1",
+                "-Daws.accessKeyId=test",
+                "-Daws.secretAccessKey=test",
+                "-Dlog4j2.configurationFile=log4j2-benchmark.xml",
+                // Every invocation replays the same event, it has to be written every time
+                "-DIDEMPOTENCY_CACHE_SIZE=0",
+                "-cp", System.getProperty("java.class.path"),
+                ColdStartProbe.class.getName(),
+                options.getOrDefault("handler", DevoxxLambda.class.getName()),
+                options.getOrDefault("event", "devoxx-lambda-processor/src/test/resources/events/event1.json"),
+                options.getOrDefault("invocations", "10")));
+        if (checkpoint) {
+            probe.add("checkpoint");
+        }
+        return probe;
+    }
+
+    private Result fork(List<String> args) throws Exception {
+        long spawned = System.currentTimeMillis();
+        Execution execution = execute(args);
+        String line = Arrays.stream(execution.output().split("\n"))
+                .filter(l -> l.startsWith(ColdStartProbe.RESULT_PREFIX))
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("Probe failed with exit code "
+                        + execution.exitCode() + ":\n" + execution.output()));
+
+        Map<String, Long> values = new HashMap<>();
+        for (String value : line.substring(ColdStartProbe.RESULT_PREFIX.length()).split(" ")) {
+            String[] entry = value.split("=");
+            values.put(entry[0], Long.parseLong(entry[1]));
+        }
+        return new Result(values.get("ready") - spawned, values.get("constructor") / 1_000_000.0,
+                values.get("first") / 1_000_000.0, values.get("last") / 1_000_000.0, values.get("rss") / 1024.0);
+    }
+
+    private Execution execute(List<String> args) throws Exception {
+        List<String> command = new ArrayList<>();
+        command.add(options.getOrDefault("java", Path.of(System.getProperty("java.home"), "bin", "java").toString()));
+        command.addAll(args);
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        // Drained on another thread, reading returns only once the child closes stdout and a hung probe
+        // would never reach the timeout below
+        CompletableFuture<String> output = CompletableFuture.supplyAsync(() -> readOutput(process));
+        if (!process.waitFor(2, TimeUnit.MINUTES)) {
+            process.destroyForcibly().waitFor();
+        }
+        return new Execution(process.exitValue(), output.join());
+    }
+
+    private static String readOutput(Process process) {
+        try (InputStream input = process.getInputStream()) {
+            return new String(input.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void report(String variant, List<Result> results) {
+        System.out.printf("%-14s %5d %9.1f %9.1f %9.1f %9.1f %9.1f %9.1f %9.1f%n", variant, results.size(),
+                percentile(results.stream().mapToDouble(Result::initMillis).toArray(), 50),
+                percentile(results.stream().mapToDouble(Result::initMillis).toArray(), 99),
+                percentile(results.stream().mapToDouble(Result::constructorMillis).toArray(), 50),
+                percentile(results.stream().mapToDouble(Result::firstMillis).toArray(), 50),
+                percentile(results.stream().mapToDouble(Result::firstMillis).toArray(), 99),
+                percentile(results.stream().mapToDouble(Result::lastMillis).toArray(), 50),
+                percentile(results.stream().mapToDouble(Result::rssMb).toArray(), 50));
+    }
+
+    // Nearest rank, with 20 runs p99 is the slowest run
+    static double percentile(double[] values, int percentile) {
+        double[] sorted = values.clone();
+        Arrays.sort(sorted);
+        int rank = (int) Math.ceil(percentile / 100.0 * sorted.length);
+        return sorted[Math.max(rank, 1) - 1];
+    }
+
+    private static List<String> concat(List<String> first, List<String> second) {
+        List<String> all = new ArrayList<>(first);
+        all.addAll(second);
+        return all;
+    }
+
+    private record Result(double initMillis, double constructorMillis, double firstMillis, double lastMillis,
+                          double rssMb) {
+    }
+
+    private record Execution(int exitCode, String output) {
+    }
+}
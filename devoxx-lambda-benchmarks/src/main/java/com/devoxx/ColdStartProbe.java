@@ -0,0 +1,93 @@
+package com.devoxx;
+
+import com.amazonaws.services.lambda.runtime.RequestHandler;
+import com.amazonaws.services.lambda.runtime.RequestStreamHandler;
+import com.amazonaws.services.lambda.runtime.events.SQSEvent;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.crac.Core;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+// Runs inside a JVM forked by ColdStartHarness, plays the part of the Lambda runtime: creates the handler
+// the way the runtime does and invokes it with the same event a number of times.
+// Args: <handler class> <event file> <invocations> [checkpoint]
+public class ColdStartProbe {
+
+    static final String RESULT_PREFIX = "COLDSTART ";
+
+    public static void main(String[] args) throws Exception {
+        Class<?> handlerClass = Class.forName(args[0]);
+        byte[] event = Files.readAllBytes(Path.of(args[1]));
+        int invocations = Integer.parseInt(args[2]);
+        boolean checkpoint = args.length > 3 && "checkpoint".equals(args[3]);
+
+        long start = System.nanoTime();
+        Object handler = handlerClass.getDeclaredConstructor().newInstance();
+        long constructor = System.nanoTime() - start;
+
+        if (checkpoint) {
+            // The handler primes itself in beforeCheckpoint, execution continues here in every restored JVM
+            Core.checkpointRestore();
+            constructor = 0;
+        }
+        long ready = System.currentTimeMillis();
+
+        Invoker invoker = invoker(handler);
+        long first = 0;
+        long last = 0;
+        for (int i = 0; i < invocations; i++) {
+            long invocationStart = System.nanoTime();
+            invoker.invoke(event);
+            last = System.nanoTime() - invocationStart;
+            if (i == 0) {
+                first = last;
+            }
+        }
+        System.out.println(RESULT_PREFIX + "ready=" + ready + " constructor=" + constructor
+                + " first=" + first + " last=" + last + " rss=" + peakRssKb("self"));
+        // Executor threads of a concurrent processor must not keep the JVM alive
+        System.exit(0);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Invoker invoker(Object handler) {
+        if (handler instanceof RequestStreamHandler streamHandler) {
+            return event -> streamHandler.handleRequest(new ByteArrayInputStream(event), new ByteArrayOutputStream(), null);
+        }
+        // The runtime maps the event JSON case insensitively ("Records", "eventSourceARN")
+        ObjectMapper mapper = JsonMapper.builder()
+                .enable(MapperFeature.ACCEPT_CASE_INSENSITIVE_PROPERTIES)
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                .build();
+        RequestHandler<SQSEvent, ?> requestHandler = (RequestHandler<SQSEvent, ?>) handler;
+        return event -> requestHandler.handleRequest(mapper.readValue(event, SQSEvent.class), null);
+    }
+
+    // VmHWM of /proc/<pid>/status, the peak resident set size. 0 where there is no procfs.
+    static long peakRssKb(String pid) {
+        try {
+            for (String line : Files.readAllLines(Path.of("/proc", pid, "status"))) {
+                if (line.startsWith("VmHWM:")) {
+                    return Long.parseLong(line.replaceAll("[^0-9]", ""));
+                }
+            }
+        } catch (IOException e) {
+            // Not Linux
+        }
+        return 0;
+    }
+
+    private interface Invoker {
+        void invoke(byte[] event) throws Exception;
+    }
+
+    private ColdStartProbe() {
+    }
+}
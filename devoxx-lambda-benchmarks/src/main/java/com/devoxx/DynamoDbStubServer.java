@@ -0,0 +1,50 @@
+package com.devoxx;
+
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executors;
+
+// Local HTTP endpoint that answers every DynamoDB call with an empty JSON object, so forked handlers
+// go through the real SDK client (credentials, signing, HTTP) without network access or LocalStack
+public class DynamoDbStubServer implements AutoCloseable {
+
+    private static final byte[] EMPTY_RESPONSE = "{}".getBytes(StandardCharsets.UTF_8);
+    private final HttpServer server;
+
+    public DynamoDbStubServer() throws IOException {
+        // Without it delayed ACKs add ~40ms to every call and hide the numbers we are after
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", exchange -> {
+            try (InputStream request = exchange.getRequestBody()) {
+                request.readAllBytes();
+            }
+            exchange.getResponseHeaders().add("Content-Type", "application/x-amz-json-1.0");
+            exchange.sendResponseHeaders(200, EMPTY_RESPONSE.length);
+            try (OutputStream response = exchange.getResponseBody()) {
+                response.write(EMPTY_RESPONSE);
+            }
+        });
+        server.setExecutor(Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "dynamodb-stub");
+            thread.setDaemon(true);
+            return thread;
+        }));
+        server.start();
+    }
+
+    public String endpoint() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+}
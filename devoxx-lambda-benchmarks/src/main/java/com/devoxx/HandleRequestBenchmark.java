@@ -0,0 +1,60 @@
+package com.devoxx;
+
+import com.amazonaws.services.lambda.runtime.events.SQSBatchResponse;
+import com.amazonaws.services.lambda.runtime.events.SQSEvent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.TimeUnit;
+
+// Whole invocation per SQS batch size, DynamoDB replaced by an in process stub so only our code is measured
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+// The same batch is replayed, so the idempotency cache is off to keep measuring the writes
+@Fork(value = 1, jvmArgsAppend = {"-Dlog4j2.configurationFile=log4j2-benchmark.xml", "-DMETRICS_ENABLED=false",
+        "-DIDEMPOTENCY_CACHE_SIZE=0"})
+public class HandleRequestBenchmark {
+
+    @Param({"1", "10", "100", "1000"})
+    public int records;
+
+    private DevoxxLambda devoxxLambda;
+    private DevoxxStreamLambda devoxxStreamLambda;
+    private SQSEvent event;
+    private byte[] eventJson;
+
+    @Setup
+    public void setup() {
+        System.setProperty("aws.region", "eu-central-1");
+        devoxxLambda = new DevoxxLambda(new InMemoryDynamoDbClient());
+        devoxxStreamLambda = new DevoxxStreamLambda(new InMemoryDynamoDbClient());
+        event = BenchmarkEvents.sqsEvent(records);
+        eventJson = BenchmarkEvents.sqsEventJson(event);
+    }
+
+    @Benchmark
+    public SQSBatchResponse requestHandler() {
+        return devoxxLambda.handleRequest(event, null);
+    }
+
+    @Benchmark
+    public byte[] requestStreamHandler() throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream(64);
+        devoxxStreamLambda.handleRequest(new ByteArrayInputStream(eventJson), output, null);
+        return output.toByteArray();
+    }
+}
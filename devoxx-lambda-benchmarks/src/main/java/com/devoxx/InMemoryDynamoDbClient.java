@@ -0,0 +1,40 @@
+package com.devoxx;
+
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.PutItemResponse;
+
+import java.util.concurrent.atomic.LongAdder;
+
+// In process stand-in for DynamoDB, accepts every write so benchmarks measure only our own code
+public class InMemoryDynamoDbClient implements DynamoDbClient {
+
+    private final LongAdder writes = new LongAdder();
+
+    @Override
+    public BatchWriteItemResponse batchWriteItem(BatchWriteItemRequest request) {
+        request.requestItems().values().forEach(requests -> writes.add(requests.size()));
+        return BatchWriteItemResponse.builder().build();
+    }
+
+    @Override
+    public PutItemResponse putItem(PutItemRequest request) {
+        writes.increment();
+        return PutItemResponse.builder().build();
+    }
+
+    public long writes() {
+        return writes.sum();
+    }
+
+    @Override
+    public String serviceName() {
+        return SERVICE_NAME;
+    }
+
+    @Override
+    public void close() {
+    }
+}
@@ -0,0 +1,52 @@
+package com.devoxx;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Body decoding: ObjectMapper.readValue resolves the deserializer on every call, ItemJson.READER has it cached
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dlog4j2.configurationFile=log4j2-benchmark.xml")
+public class ItemDeserializationBenchmark {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private String body;
+    private byte[] event;
+
+    @Setup
+    public void setup() {
+        body = BenchmarkEvents.itemBody(1);
+        event = BenchmarkEvents.sqsEventJson(BenchmarkEvents.sqsEvent(10));
+    }
+
+    @Benchmark
+    public Item objectMapper() throws Exception {
+        return objectMapper.readValue(body, Item.class);
+    }
+
+    @Benchmark
+    public Item objectReader() throws Exception {
+        return ItemJson.READER.readValue(body);
+    }
+
+    @Benchmark
+    public List<ItemMessage> streamingSqsEvent() throws Exception {
+        return DevoxxStreamLambda.readMessages(new ByteArrayInputStream(event));
+    }
+}
@@ -0,0 +1,65 @@
+package com.devoxx;
+
+import com.amazonaws.services.lambda.runtime.events.SQSEvent;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Logging cost of one 100 record batch on the handler thread, with the configuration the functions run with:
+// - fullEventAndPerItemLines: what @Logging(logEvent = true) and one "Saved item" line per record did
+// - batchSummaryLine: one summary line per batch, as ItemProcessor logs now
+// stdout is discarded, so formatting is measured and the console itself is not
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LoggingBenchmark {
+
+    private static final Logger LOGGER = LogManager.getLogger(LoggingBenchmark.class);
+
+    private SQSEvent event;
+    private List<Item> items;
+
+    @Setup
+    public void setup() throws Exception {
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        event = BenchmarkEvents.sqsEvent(100);
+        items = new ArrayList<>();
+        for (SQSEvent.SQSMessage message : event.getRecords()) {
+            items.add(ItemJson.READER.readValue(message.getBody()));
+        }
+    }
+
+    @Benchmark
+    public void fullEventAndPerItemLines() throws Exception {
+        LOGGER.info("SQS event: {}", ItemJson.MAPPER.writeValueAsString(event));
+        for (Item item : items) {
+            LOGGER.info("Saved item: {}", item);
+        }
+    }
+
+    @Benchmark
+    public void batchSummaryLine() {
+        for (Item item : items) {
+            LOGGER.debug("Saved item: {}", item);
+        }
+        LOGGER.info("Processed {} messages, saved {} items, {} failed", event.getRecords().size(), items.size(), 0);
+    }
+}
@@ -0,0 +1,111 @@
+package com.devoxx;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Local Lambda Runtime API for the native executable: hands out the same event a number of times and records when
+// the executable first asked for an event and how long every invocation took. Further polls are left waiting,
+// like a frozen environment, until the stub is closed.
+public class RuntimeApiStub implements AutoCloseable {
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "runtime-api-stub");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final byte[] event;
+    private final long[] handedOutNanos;
+    private final long[] respondedNanos;
+    private final AtomicInteger handedOut = new AtomicInteger();
+    private final CountDownLatch responded;
+    private final CountDownLatch closed = new CountDownLatch(1);
+    private volatile long firstPollMillis;
+
+    public RuntimeApiStub(byte[] event, int invocations) throws IOException {
+        this.event = event;
+        this.handedOutNanos = new long[invocations];
+        this.respondedNanos = new long[invocations];
+        this.responded = new CountDownLatch(invocations);
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/2018-06-01/runtime/invocation/", this::handle);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    // Value of AWS_LAMBDA_RUNTIME_API
+    public String address() {
+        return "127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    public boolean await(long timeout, TimeUnit unit) throws InterruptedException {
+        return responded.await(timeout, unit);
+    }
+
+    public long firstPollMillis() {
+        return firstPollMillis;
+    }
+
+    public long invocationNanos(int invocation) {
+        return respondedNanos[invocation] - handedOutNanos[invocation];
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        try (InputStream request = exchange.getRequestBody()) {
+            request.readAllBytes();
+        }
+        if (path.endsWith("/next")) {
+            if (firstPollMillis == 0) {
+                firstPollMillis = System.currentTimeMillis();
+            }
+            int invocation = handedOut.getAndIncrement();
+            if (invocation >= handedOutNanos.length) {
+                awaitClose();
+                exchange.close();
+                return;
+            }
+            exchange.getResponseHeaders().add("Lambda-Runtime-Aws-Request-Id", String.valueOf(invocation));
+            exchange.getResponseHeaders().add("Lambda-Runtime-Deadline-Ms", String.valueOf(System.currentTimeMillis() + 30_000));
+            exchange.getResponseHeaders().add("Lambda-Runtime-Invoked-Function-Arn", "arn:aws:lambda:eu-central-1:000000000000:function:DevoxxLambda");
+            handedOutNanos[invocation] = System.nanoTime();
+            exchange.sendResponseHeaders(200, event.length);
+            try (OutputStream response = exchange.getResponseBody()) {
+                response.write(event);
+            }
+            return;
+        }
+        // /invocation/<request id>/response or /error, an error still ends the invocation
+        int invocation = Integer.parseInt(path.split("/")[4]);
+        respondedNanos[invocation] = System.nanoTime();
+        exchange.sendResponseHeaders(202, -1);
+        exchange.close();
+        responded.countDown();
+    }
+
+    private void awaitClose() {
+        try {
+            closed.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void close() {
+        closed.countDown();
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
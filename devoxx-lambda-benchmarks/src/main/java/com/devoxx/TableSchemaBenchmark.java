@@ -0,0 +1,57 @@
+package com.devoxx;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Item <-> attribute map conversion with the generated schema and the reflective bean schema
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dlog4j2.configurationFile=log4j2-benchmark.xml")
+public class TableSchemaBenchmark {
+
+    private final TableSchema<Item> beanSchema = TableSchema.fromBean(Item.class);
+    private Item item;
+    private Map<String, AttributeValue> attributes;
+
+    @Setup
+    public void setup() throws Exception {
+        item = ItemJson.READER.readValue(BenchmarkEvents.itemBody(1));
+        attributes = ItemTableSchema.INSTANCE.itemToMap(item, true);
+    }
+
+    @Benchmark
+    public Map<String, AttributeValue> staticItemToMap() {
+        return ItemTableSchema.INSTANCE.itemToMap(item, true);
+    }
+
+    @Benchmark
+    public Map<String, AttributeValue> beanItemToMap() {
+        return beanSchema.itemToMap(item, true);
+    }
+
+    @Benchmark
+    public Item staticMapToItem() {
+        return ItemTableSchema.INSTANCE.mapToItem(attributes);
+    }
+
+    @Benchmark
+    public Item beanMapToItem() {
+        return beanSchema.mapToItem(attributes);
+    }
+}
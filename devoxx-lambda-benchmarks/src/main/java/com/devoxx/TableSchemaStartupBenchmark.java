@@ -0,0 +1,32 @@
+package com.devoxx;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+
+import java.util.concurrent.TimeUnit;
+
+// Cold creation of the generated and the reflective bean schema: one call per fresh JVM, so each measurement
+// pays for loading the enhanced client classes like the init phase of a cold Lambda does
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(value = 10, jvmArgsAppend = "-Dlog4j2.configurationFile=log4j2-benchmark.xml")
+public class TableSchemaStartupBenchmark {
+
+    @Benchmark
+    public TableSchema<Item> staticSchema() {
+        return ItemTableSchema.INSTANCE;
+    }
+
+    @Benchmark
+    public TableSchema<Item> beanSchema() {
+        return TableSchema.fromBean(Item.class);
+    }
+}
@@ -0,0 +1,22 @@
+package devoxx.appcds;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Path;
+
+// Starts com.devoxx.AppCdsTraining for the AppCDS dump, compiled by the appcds profile into a module of its own and
+// run from the module path: java -p appcds-launcher.jar -m devoxx.appcds/devoxx.appcds.AppCdsLauncher <jar> <events>
+// A class loaded from the -cp jar would tie the archive to that classpath, and the Lambda runtime has its own. Loaded
+// from the jar by a class loader of its own, the handler classes are archived for any user-defined loader and matched
+// by name and class file checksum, so they also apply to the jar unpacked in /var/task. The launcher is not run as a
+// single source file, that would load javac and archive its classes along with the handler's.
+public class AppCdsLauncher {
+
+    public static void main(String[] args) throws Exception {
+        URLClassLoader loader = new URLClassLoader(new URL[]{Path.of(args[0]).toUri().toURL()},
+                ClassLoader.getPlatformClassLoader());
+        loader.loadClass("com.devoxx.AppCdsTraining")
+                .getMethod("main", String[].class)
+                .invoke(null, (Object) new String[]{args[1]});
+    }
+}
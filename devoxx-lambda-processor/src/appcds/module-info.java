@@ -0,0 +1,3 @@
+// The AppCDS training launcher, kept off the classpath so the archive does not depend on it
+module devoxx.appcds {
+}
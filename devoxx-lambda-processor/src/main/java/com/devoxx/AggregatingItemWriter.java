@@ -0,0 +1,229 @@
+package com.devoxx;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.CancellationReason;
+import software.amazon.awssdk.services.dynamodb.model.KeysAndAttributes;
+import software.amazon.awssdk.services.dynamodb.model.Put;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItem;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItemsRequest;
+import software.amazon.awssdk.services.dynamodb.model.TransactionCanceledException;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+// Keeps InventoryAggregates up to date with the items (INVENTORY_AGGREGATES=true). The items of a company in a chunk
+// are written with one TransactWriteItems together with the ADD of their summed delta, so the totals change exactly
+// when the items do and a failed write is retried through SQS like any other. The delta needs the replaced items:
+// they are read first with a consistent BatchGetItem and every put is conditioned on the image it was read with.
+// A write in between cancels the transaction, which is read and tried again. Transactional writes cost twice the
+// WCUs of plain puts. The delta is added once per company and chunk of 25 items, not once per batch: a batch with
+// 100 items of one company is four transactions and four ADDs on its aggregate record, since one transaction
+// cannot hold more. Companies are written in parallel on the executor, and with IDEMPOTENCY_CONDITIONAL_WRITES
+// an item whose stored content hash matches is left out and adds nothing.
+// Items written unsharded before WRITE_SHARDS was enabled have no old image under their sharded key and count again.
+public class AggregatingItemWriter implements ItemWriter {
+
+    private static final Logger LOGGER = LogManager.getLogger(AggregatingItemWriter.class);
+    // Reads and transactions per company and chunk before its items are reported as failed, conflicts and throttles
+    // alike. The SDK does not retry throttling, throttled transactions back off here like BatchItemWriter's chunks.
+    static final int MAX_ATTEMPTS = BatchItemWriter.MAX_ATTEMPTS;
+    // Cancellation reasons of another write getting in between, the old images have to be read again
+    private static final Set<String> CONFLICTS = Set.of("ConditionalCheckFailed", "TransactionConflict");
+    private static final Set<String> THROTTLES = Set.of("ThrottlingError", "ProvisionedThroughputExceeded");
+
+    private final DynamoDbClient dynamoDbClient;
+    private final String tableName;
+    private final TableSchema<Item> tableSchema;
+    private final Executor executor;
+    private final ItemMetrics metrics;
+    private final WriteRateLimiter rateLimiter;
+    private final WriteSharding sharding;
+    private final InventoryAggregates aggregates;
+    private final boolean conditional;
+
+    public AggregatingItemWriter(DynamoDbClient dynamoDbClient, String tableName, TableSchema<Item> tableSchema,
+                                 Executor executor, ItemMetrics metrics, WriteRateLimiter rateLimiter,
+                                 WriteSharding sharding, InventoryAggregates aggregates, boolean conditional) {
+        this.dynamoDbClient = dynamoDbClient;
+        this.tableName = tableName;
+        this.tableSchema = tableSchema;
+        this.executor = executor;
+        this.metrics = metrics;
+        this.rateLimiter = rateLimiter;
+        this.sharding = sharding;
+        this.aggregates = aggregates;
+        this.conditional = conditional;
+    }
+
+    // Only written items change the totals
+    @Override
+    public Result writeItems(List<Item> items, Deadline deadline) {
+        List<Item> failed = new ArrayList<>();
+        int written = 0;
+        // Chunks never repeat a key and stay far below the 100 actions of a transaction
+        for (List<Item> chunk : BatchItemWriter.chunk(items)) {
+            if (deadline.expired()) {
+                metrics.deadlineSkipped(chunk.size());
+                failed.addAll(chunk);
+                continue;
+            }
+            Map<String, List<Item>> companies = new LinkedHashMap<>();
+            chunk.forEach(item -> companies.computeIfAbsent(item.getCompanyId(), companyId -> new ArrayList<>()).add(item));
+            List<CompletableFuture<Result>> writes = new ArrayList<>(companies.size());
+            companies.values().forEach(company ->
+                    writes.add(CompletableFuture.supplyAsync(() -> writeCompany(company, deadline), executor)));
+            for (CompletableFuture<Result> write : writes) {
+                Result result = write.join();
+                failed.addAll(result.failed());
+                written += result.written();
+            }
+        }
+        return new Result(failed, written);
+    }
+
+    // The items of one company and their delta in one transaction, all of them failed or none
+    private Result writeCompany(List<Item> items, Deadline deadline) {
+        String companyId = items.get(0).getCompanyId();
+        for (int attempt = 1; ; attempt++) {
+            // The puts and the aggregate update
+            WriteRateLimiter.Permit permit = rateLimiter.acquire(items.size() + 1, deadline);
+            if (permit != WriteRateLimiter.Permit.ACQUIRED) {
+                if (permit == WriteRateLimiter.Permit.PAST_DEADLINE) {
+                    metrics.deadlineSkipped(items.size());
+                }
+                return new Result(items, 0);
+            }
+            try {
+                Map<ItemKey, Map<String, AttributeValue>> previous = readPrevious(items, deadline);
+                List<TransactWriteItem> actions = new ArrayList<>(items.size() + 1);
+                InventoryAggregate delta = InventoryAggregate.empty(companyId);
+                for (Item item : items) {
+                    Item stored = sharding.toStored(item);
+                    Map<String, AttributeValue> old = previous.get(ItemKey.of(stored));
+                    Map<String, AttributeValue> attributes = new HashMap<>(tableSchema.itemToMap(stored, true));
+                    if (conditional) {
+                        AttributeValue contentHash = AttributeValue.fromS(IdempotencyCache.contentHash(item));
+                        if (old != null && contentHash.equals(old.get(ConditionalItemWriter.CONTENT_HASH_ATTRIBUTE))) {
+                            metrics.conditionalWriteSkipped();
+                            continue;
+                        }
+                        attributes.put(ConditionalItemWriter.CONTENT_HASH_ATTRIBUTE, contentHash);
+                    }
+                    actions.add(TransactWriteItem.builder().put(put(attributes, old)).build());
+                    delta = delta.plus(InventoryAggregate.delta(old != null ? tableSchema.mapToItem(old) : null, item));
+                }
+                if (actions.isEmpty()) {
+                    return new Result(List.of(), 0);
+                }
+                int puts = actions.size();
+                if (!delta.isZero()) {
+                    actions.add(TransactWriteItem.builder().update(aggregates.update(delta)).build());
+                }
+                long start = System.nanoTime();
+                dynamoDbClient.transactWriteItems(TransactWriteItemsRequest.builder().transactItems(actions).build());
+                metrics.writeLatency(System.nanoTime() - start);
+                rateLimiter.onSuccess();
+                if (!delta.isZero()) {
+                    metrics.aggregateUpdates(1);
+                }
+                return new Result(List.of(), puts);
+            } catch (TransactionCanceledException e) {
+                if (hasReason(e, THROTTLES)) {
+                    if (throttled(attempt, deadline)) {
+                        continue;
+                    }
+                } else if (attempt < MAX_ATTEMPTS && hasReason(e, CONFLICTS)) {
+                    LOGGER.debug("Items of {} changed while writing, reading them again", companyId);
+                    metrics.retry();
+                    continue;
+                }
+                LOGGER.error("Could not write {} items of {} after {} attempts: {}", items.size(), companyId, attempt,
+                        e.cancellationReasons());
+                return new Result(items, 0);
+            } catch (Exception e) {
+                if (e instanceof SdkException sdkException && BatchItemWriter.isThrottling(sdkException)
+                        && throttled(attempt, deadline)) {
+                    continue;
+                }
+                LOGGER.error("Error saving {} items of {}", items.size(), companyId, e);
+                return new Result(items, 0);
+            }
+        }
+    }
+
+    // Slows the limiter down and backs off, false when the items go back to SQS instead
+    private boolean throttled(int attempt, Deadline deadline) {
+        rateLimiter.onThrottle();
+        metrics.throttle();
+        if (attempt < MAX_ATTEMPTS && BatchItemWriter.backoff(attempt, deadline)) {
+            metrics.retry();
+            return true;
+        }
+        return false;
+    }
+
+    // Stored images of the items by stored key, read strongly consistent so the conditions below hold for them
+    private Map<ItemKey, Map<String, AttributeValue>> readPrevious(List<Item> items, Deadline deadline) {
+        List<Map<String, AttributeValue>> keys = new ArrayList<>(items.size());
+        for (Item item : items) {
+            ItemKey key = sharding.storedKey(item);
+            keys.add(Map.of("companyId", AttributeValue.fromS(key.companyId()), "uuid", AttributeValue.fromS(key.uuid())));
+        }
+        Map<String, KeysAndAttributes> request = Map.of(tableName,
+                KeysAndAttributes.builder().keys(keys).consistentRead(true).build());
+        Map<ItemKey, Map<String, AttributeValue>> previous = new HashMap<>();
+        for (int attempt = 1; !request.isEmpty(); attempt++) {
+            // Unprocessed keys are throttled reads
+            if (attempt > 1 && (attempt > MAX_ATTEMPTS || !BatchItemWriter.backoff(attempt - 1, deadline))) {
+                throw new IllegalStateException("Old images of " + items.size() + " items stayed unprocessed");
+            }
+            BatchGetItemResponse response = dynamoDbClient.batchGetItem(BatchGetItemRequest.builder()
+                    .requestItems(request)
+                    .build());
+            for (Map<String, AttributeValue> item : response.responses().getOrDefault(tableName, List.of())) {
+                previous.put(new ItemKey(item.get("companyId").s(), item.get("uuid").s()), item);
+            }
+            request = response.unprocessedKeys();
+        }
+        return previous;
+    }
+
+    // Only written if the stored item still has the quantity and price the delta was computed from
+    private Put put(Map<String, AttributeValue> attributes, Map<String, AttributeValue> old) {
+        Put.Builder put = Put.builder().tableName(tableName).item(attributes);
+        if (old == null) {
+            return put.conditionExpression("attribute_not_exists(#uuid)")
+                    .expressionAttributeNames(Map.of("#uuid", "uuid"))
+                    .build();
+        }
+        return put.conditionExpression("#quantity = :quantity AND #price = :price")
+                .expressionAttributeNames(Map.of("#quantity", "quantity", "#price", "price"))
+                .expressionAttributeValues(Map.of(":quantity", old.get("quantity"), ":price", old.get("price")))
+                .build();
+    }
+
+    private static boolean hasReason(TransactionCanceledException e, Set<String> codes) {
+        if (!e.hasCancellationReasons()) {
+            return false;
+        }
+        for (CancellationReason reason : e.cancellationReasons()) {
+            if (codes.contains(reason.code())) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,90 @@
+package com.devoxx;
+
+import com.amazonaws.services.lambda.runtime.events.SQSEvent;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+// Training run for the AppCDS archive shipped with the function (mvn package -Pappcds): replays the sample events
+// through both handlers and primes them, against a local endpoint that answers every AWS call with an empty JSON
+// object. Started by the launcher in src/appcds under -XX:ArchiveClassesAtExit, which loads the jar with its own
+// class loader like the Lambda runtime does. Run on its own it reports how long the handler path takes to load.
+// Args: <events directory>
+public final class AppCdsTraining {
+
+    private static final byte[] EMPTY_RESPONSE = "{}".getBytes(StandardCharsets.UTF_8);
+
+    public static void main(String[] args) throws Exception {
+        List<byte[]> events = new ArrayList<>();
+        try (Stream<Path> files = Files.list(Path.of(args[0]))) {
+            for (Path file : files.filter(f -> f.toString().endsWith(".json")).sorted().toList()) {
+                events.add(Files.readAllBytes(file));
+            }
+        }
+
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", exchange -> {
+            try (InputStream request = exchange.getRequestBody()) {
+                request.readAllBytes();
+            }
+            exchange.getResponseHeaders().add("Content-Type", "application/x-amz-json-1.0");
+            exchange.sendResponseHeaders(200, EMPTY_RESPONSE.length);
+            try (OutputStream response = exchange.getResponseBody()) {
+                response.write(EMPTY_RESPONSE);
+            }
+        });
+        server.start();
+        System.setProperty("ENDPOINT", "http://localhost:" + server.getAddress().getPort());
+        System.setProperty("AWS_REGION", "eu-central-1");
+        System.setProperty("aws.accessKeyId", "training");
+        System.setProperty("aws.secretAccessKey", "training");
+        // Every event is replayed, it has to be written every time
+        System.setProperty("IDEMPOTENCY_CACHE_SIZE", "0");
+
+        long start = System.nanoTime();
+        try {
+            replay(events);
+        } finally {
+            server.stop(0);
+        }
+        System.out.printf("Trained on %d events in %d ms, %d classes loaded%n", events.size(),
+                (System.nanoTime() - start) / 1_000_000, ManagementFactory.getClassLoadingMXBean().getLoadedClassCount());
+        // Executor threads of a concurrent processor must not keep the JVM alive, the archive is written at exit
+        System.exit(0);
+    }
+
+    private static void replay(List<byte[]> events) throws Exception {
+        DevoxxLambda handler = new DevoxxLambda();
+        DevoxxStreamLambda streamHandler = new DevoxxStreamLambda();
+        handler.prime();
+        streamHandler.prime();
+        // The runtime maps the event JSON case insensitively ("Records", "eventSourceARN")
+        ObjectMapper mapper = JsonMapper.builder()
+                .enable(MapperFeature.ACCEPT_CASE_INSENSITIVE_PROPERTIES)
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                .build();
+        for (byte[] event : events) {
+            handler.handleRequest(mapper.readValue(event, SQSEvent.class), null);
+            streamHandler.handleRequest(new ByteArrayInputStream(event), new ByteArrayOutputStream(), null);
+        }
+    }
+
+    private AppCdsTraining() {
+    }
+}
@@ -1,20 +1,167 @@
 package com.devoxx;
 
+import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.ContainerCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.EnvironmentVariableCredentialsProvider;
+import software.amazon.awssdk.awscore.client.builder.AwsClientBuilder;
+import software.amazon.awssdk.awscore.client.builder.AwsSyncClientBuilder;
+import software.amazon.awssdk.core.retry.RetryMode;
+import software.amazon.awssdk.core.retry.RetryPolicy;
+import software.amazon.awssdk.core.retry.conditions.RetryCondition;
+import software.amazon.awssdk.http.SdkHttpClient;
+import software.amazon.awssdk.http.crt.AwsCrtHttpClient;
+import software.amazon.awssdk.http.urlconnection.UrlConnectionHttpClient;
+import software.amazon.awssdk.regions.Region;
 import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
 import software.amazon.awssdk.services.dynamodb.DynamoDbClientBuilder;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3ClientBuilder;
+import software.amazon.awssdk.services.sqs.SqsClient;
+import software.amazon.awssdk.services.sqs.SqsClientBuilder;
 
 import java.net.URI;
+import java.time.Duration;
 
 public class AwsSdkClientUtil {
 
+    // URL_CONNECTION (default) or CRT, the CRT client needs the jar built with -Pcrt
+    private static final String HTTP_CLIENT = EnvUtil.get("HTTP_CLIENT", "URL_CONNECTION");
+    private static final Duration CONNECTION_TIMEOUT = Duration.ofMillis(EnvUtil.getInt("HTTP_CONNECTION_TIMEOUT_MS", 1000));
+    private static final Duration SOCKET_TIMEOUT = Duration.ofMillis(EnvUtil.getInt("HTTP_SOCKET_TIMEOUT_MS", 5000));
+    private static final int MAX_CONNECTIONS = EnvUtil.getInt("HTTP_MAX_CONNECTIONS", 16);
+    private static final Duration API_CALL_TIMEOUT = Duration.ofMillis(EnvUtil.getInt("API_CALL_TIMEOUT_MS", 10000));
+    private static final Duration API_CALL_ATTEMPT_TIMEOUT = Duration.ofMillis(EnvUtil.getInt("API_CALL_ATTEMPT_TIMEOUT_MS", 3000));
+
+    // For the item writers, they retry throttled writes themselves (dynamoDbRetryPolicy)
     public static DynamoDbClient createDynamoDbClient() {
-        //For system and unit tests
-        String endpoint = System.getenv("ENDPOINT") != null ? System.getenv("ENDPOINT") : System.getProperty("ENDPOINT") ;
+        return createDynamoDbClient(dynamoDbRetryPolicy());
+    }
 
-        DynamoDbClientBuilder builder = DynamoDbClient.builder();
+    // For DevoxxReadLambda, nothing retries a throttled read behind it, so the SDK keeps doing that
+    public static DynamoDbClient createDynamoDbReadClient() {
+        return createDynamoDbClient(RetryPolicy.forRetryMode(RetryMode.STANDARD));
+    }
+
+    private static DynamoDbClient createDynamoDbClient(RetryPolicy retryPolicy) {
+        String endpoint = endpoint();
+        DynamoDbClientBuilder builder = configure(DynamoDbClient.builder(), SOCKET_TIMEOUT, API_CALL_TIMEOUT,
+                API_CALL_ATTEMPT_TIMEOUT, retryPolicy);
         if (endpoint != null) {
             builder.endpointOverride(URI.create(endpoint));
         }
         return builder.build();
     }
+
+    public static S3Client createS3Client() {
+        String endpoint = endpoint();
+        S3ClientBuilder builder = configure(S3Client.builder());
+        if (endpoint != null) {
+            // LocalStack serves buckets by path, not by virtual host
+            builder.endpointOverride(URI.create(endpoint)).forcePathStyle(true);
+        }
+        return builder.build();
+    }
+
+    // For SqsWorker. A long poll holds the request open for up to 20 seconds, the socket and call timeouts
+    // tuned for DynamoDB would abort every empty receive
+    public static SqsClient createSqsClient() {
+        String endpoint = endpoint();
+        Duration longPollTimeout = Duration.ofSeconds(SqsWorker.WAIT_TIME_SECONDS + 10);
+        SqsClientBuilder builder = configure(SqsClient.builder(), longPollTimeout, longPollTimeout, longPollTimeout);
+        if (endpoint != null) {
+            builder.endpointOverride(URI.create(endpoint));
+        }
+        return builder.build();
+    }
+
+    //For system and unit tests
+    private static String endpoint() {
+        return System.getenv("ENDPOINT") != null ? System.getenv("ENDPOINT") : System.getProperty("ENDPOINT");
+    }
+
+    // Explicit region, credentials and HTTP client, so the SDK skips its default provider chains and
+    // HTTP implementation discovery during init
+    static <B extends AwsClientBuilder<B, ?> & AwsSyncClientBuilder<B, ?>> B configure(B builder) {
+        return configure(builder, SOCKET_TIMEOUT, API_CALL_TIMEOUT, API_CALL_ATTEMPT_TIMEOUT);
+    }
+
+    static <B extends AwsClientBuilder<B, ?> & AwsSyncClientBuilder<B, ?>> B configure(B builder, Duration socketTimeout,
+                                                                                       Duration apiCallTimeout,
+                                                                                       Duration apiCallAttemptTimeout) {
+        return configure(builder, socketTimeout, apiCallTimeout, apiCallAttemptTimeout,
+                RetryPolicy.forRetryMode(RetryMode.STANDARD));
+    }
+
+    static <B extends AwsClientBuilder<B, ?> & AwsSyncClientBuilder<B, ?>> B configure(B builder, Duration socketTimeout,
+                                                                                       Duration apiCallTimeout,
+                                                                                       Duration apiCallAttemptTimeout,
+                                                                                       RetryPolicy retryPolicy) {
+        String region = EnvUtil.get("AWS_REGION", null);
+        if (region != null) {
+            builder.region(Region.of(region));
+        }
+        return builder
+                .credentialsProvider(createCredentialsProvider())
+                .httpClient(createHttpClient(socketTimeout))
+                .overrideConfiguration(c -> c
+                        .apiCallTimeout(apiCallTimeout)
+                        .apiCallAttemptTimeout(apiCallAttemptTimeout)
+                        .retryPolicy(retryPolicy));
+    }
+
+    // DynamoDB defaults to 8 retries. Standard mode keeps 3 attempts for network and 5xx errors, but throttling
+    // errors go straight back to the writers: BatchItemWriter, ConditionalItemWriter and AggregatingItemWriter
+    // back off and retry behind the WriteRateLimiter, which has to hear about every throttle to slow down,
+    // instead of the SDK backing off on its own first. A throttled claim check checkpoint fails the import,
+    // which resumes from the previous checkpoint when SQS redelivers it.
+    static RetryPolicy dynamoDbRetryPolicy() {
+        RetryCondition standard = RetryCondition.defaultRetryCondition();
+        return RetryPolicy.builder(RetryMode.STANDARD)
+                .retryCondition(context -> !(context.exception() != null
+                        && BatchItemWriter.isThrottling(context.exception()))
+                        && standard.shouldRetry(context))
+                .build();
+    }
+
+    // Lambda exposes credentials either as env variables or, with SnapStart, through a container endpoint
+    static AwsCredentialsProvider createCredentialsProvider() {
+        if (System.getenv("AWS_CONTAINER_CREDENTIALS_FULL_URI") != null) {
+            return ContainerCredentialsProvider.builder().build();
+        }
+        if (System.getenv("AWS_ACCESS_KEY_ID") != null) {
+            return EnvironmentVariableCredentialsProvider.create();
+        }
+        //For system and unit tests, credentials come from system properties or a profile
+        return DefaultCredentialsProvider.create();
+    }
+
+    static SdkHttpClient createHttpClient(Duration socketTimeout) {
+        if ("CRT".equalsIgnoreCase(HTTP_CLIENT)) {
+            return CrtHttpClientFactory.create();
+        }
+        // UrlConnection keeps idle connections in the JDK keep-alive cache, which holds 5 per host by default
+        if (System.getProperty("http.maxConnections") == null) {
+            System.setProperty("http.maxConnections", String.valueOf(MAX_CONNECTIONS));
+        }
+        return UrlConnectionHttpClient.builder()
+                .connectionTimeout(CONNECTION_TIMEOUT)
+                .socketTimeout(socketTimeout)
+                .build();
+    }
+
+    // Separate class, so CRT classes are only loaded when the CRT client is selected
+    private static class CrtHttpClientFactory {
+
+        static SdkHttpClient create() {
+            return AwsCrtHttpClient.builder()
+                    .maxConcurrency(MAX_CONNECTIONS)
+                    .connectionTimeout(CONNECTION_TIMEOUT)
+                    .connectionMaxIdleTime(Duration.ofSeconds(60))
+                    .tcpKeepAliveConfiguration(k -> k
+                            .keepAliveInterval(Duration.ofSeconds(30))
+                            .keepAliveTimeout(Duration.ofSeconds(5)))
+                    .build();
+        }
+    }
 }
@@ -0,0 +1,280 @@
+package com.devoxx;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import software.amazon.awssdk.awscore.exception.AwsServiceException;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
+import software.amazon.awssdk.enhanced.dynamodb.model.BatchWriteResult;
+import software.amazon.awssdk.enhanced.dynamodb.model.WriteBatch;
+import software.amazon.awssdk.services.dynamodb.model.ProvisionedThroughputExceededException;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+public class BatchItemWriter implements ItemWriter {
+
+    private static final Logger LOGGER = LogManager.getLogger(BatchItemWriter.class);
+    // DynamoDB limit for a single BatchWriteItem call
+    static final int MAX_BATCH_SIZE = 25;
+    // Attempts per chunk, ConditionalItemWriter and AggregatingItemWriter retry throttled writes as often
+    static final int MAX_ATTEMPTS = 5;
+    private static final long BASE_BACKOFF_MILLIS = 50;
+    private static final long MAX_BACKOFF_MILLIS = 2000;
+
+    private static volatile Random jitter = new Random();
+
+    private final DynamoDbEnhancedClient enhancedClient;
+    private final DynamoDbTable<Item> itemTable;
+    private final Executor executor;
+    private final ItemMetrics metrics;
+    private final WriteRateLimiter rateLimiter;
+    private final HotPartitionDetector hotPartitions;
+    private final WriteSharding sharding;
+    private final int parallelism;
+
+    public BatchItemWriter(DynamoDbEnhancedClient enhancedClient, DynamoDbTable<Item> itemTable) {
+        this(enhancedClient, itemTable, Runnable::run, new ItemMetrics());
+    }
+
+    public BatchItemWriter(DynamoDbEnhancedClient enhancedClient, DynamoDbTable<Item> itemTable, Executor executor,
+                           ItemMetrics metrics) {
+        this(enhancedClient, itemTable, executor, metrics, new WriteRateLimiter(), new HotPartitionDetector(metrics),
+                new WriteSharding());
+    }
+
+    public BatchItemWriter(DynamoDbEnhancedClient enhancedClient, DynamoDbTable<Item> itemTable, Executor executor,
+                           ItemMetrics metrics, WriteRateLimiter rateLimiter, HotPartitionDetector hotPartitions,
+                           WriteSharding sharding) {
+        this(enhancedClient, itemTable, executor, metrics, rateLimiter, hotPartitions, sharding, 1);
+    }
+
+    // Chunks are handed to the executor, a bounded pool of parallelism threads writes them in parallel.
+    // Limiter and detector outlive a writer, they are shared by all writers of the processor.
+    public BatchItemWriter(DynamoDbEnhancedClient enhancedClient, DynamoDbTable<Item> itemTable, Executor executor,
+                           ItemMetrics metrics, WriteRateLimiter rateLimiter, HotPartitionDetector hotPartitions,
+                           WriteSharding sharding, int parallelism) {
+        this.enhancedClient = enhancedClient;
+        this.itemTable = itemTable;
+        this.executor = executor;
+        this.metrics = metrics;
+        this.rateLimiter = rateLimiter;
+        this.hotPartitions = hotPartitions;
+        this.sharding = sharding;
+        this.parallelism = parallelism;
+    }
+
+    // Writes all items and returns the ones that could not be written after all retries
+    public List<Item> write(List<Item> items) {
+        return write(items, Deadline.NONE);
+    }
+
+    // Items of chunks that have not started or are still retrying when the deadline passes are returned as failed
+    @Override
+    public Result writeItems(List<Item> items, Deadline deadline) {
+        List<Item> failed = new ArrayList<>();
+        List<CompletableFuture<List<Item>>> inFlight = new ArrayList<>();
+        Set<ItemKey> inFlightKeys = new HashSet<>();
+        for (List<Item> chunk : chunk(items, parallelism)) {
+            // A chunk repeating a key of a running chunk waits for it, so the last write still wins
+            if (chunk.stream().map(ItemKey::of).anyMatch(inFlightKeys::contains)) {
+                join(inFlight, failed);
+                inFlightKeys.clear();
+            }
+            chunk.forEach(item -> inFlightKeys.add(ItemKey.of(item)));
+            inFlight.add(CompletableFuture.supplyAsync(() -> writeChunk(chunk, deadline), executor)
+                    .exceptionally(e -> {
+                        LOGGER.error("Error writing batch of {} items", chunk.size(), e);
+                        return chunk;
+                    }));
+        }
+        join(inFlight, failed);
+        return new Result(failed, items.size() - failed.size());
+    }
+
+    private static void join(List<CompletableFuture<List<Item>>> futures, List<Item> failed) {
+        futures.forEach(future -> failed.addAll(future.join()));
+        futures.clear();
+    }
+
+    // BatchWriteItem rejects requests with more than 25 items or with the same key twice,
+    // so a duplicate key starts a new chunk. Chunks are written in order, so the last write still wins.
+    static List<List<Item>> chunk(List<Item> items) {
+        return chunk(items, 1);
+    }
+
+    // A batch that fills fewer than parallelism chunks of 25 is spread over parallelism smaller chunks instead,
+    // otherwise an SQS batch of up to 25 records is a single call however many threads there are
+    static List<List<Item>> chunk(List<Item> items, int parallelism) {
+        int chunkSize = Math.max(1, Math.min(MAX_BATCH_SIZE, (items.size() + parallelism - 1) / parallelism));
+        List<List<Item>> chunks = new ArrayList<>();
+        List<Item> current = new ArrayList<>();
+        Set<ItemKey> keys = new HashSet<>();
+        for (Item item : items) {
+            if (current.size() == chunkSize || !keys.add(ItemKey.of(item))) {
+                chunks.add(current);
+                current = new ArrayList<>();
+                keys.clear();
+                keys.add(ItemKey.of(item));
+            }
+            current.add(item);
+        }
+        if (!current.isEmpty()) {
+            chunks.add(current);
+        }
+        return chunks;
+    }
+
+    List<Item> writeChunk(List<Item> chunk, Deadline deadline) {
+        List<Item> pending = chunk;
+        for (int attempt = 1; ; attempt++) {
+            if (deadline.expired()) {
+                return deadlineExpired(pending);
+            }
+            if (attempt > 1) {
+                metrics.retry();
+            }
+            WriteRateLimiter.Permit permit = rateLimiter.acquire(pending.size(), deadline);
+            if (permit == WriteRateLimiter.Permit.PAST_DEADLINE) {
+                return deadlineExpired(pending);
+            }
+            if (permit == WriteRateLimiter.Permit.INTERRUPTED) {
+                return pending;
+            }
+            try {
+                WriteBatch batch = writeBatch(pending);
+                long start = System.nanoTime();
+                BatchWriteResult result = enhancedClient.batchWriteItem(r -> r.addWriteBatch(batch));
+                metrics.writeLatency(System.nanoTime() - start);
+                List<Item> unprocessed = originals(pending, result.unprocessedPutItemsForTable(itemTable));
+                hotPartitions.record(pending, unprocessed);
+                // Unprocessed items are what BatchWriteItem returns instead of throwing when partitions are throttled
+                if (unprocessed.isEmpty()) {
+                    rateLimiter.onSuccess();
+                } else {
+                    throttled();
+                }
+                pending = unprocessed;
+                metrics.unprocessedItems(pending.size());
+            } catch (SdkException e) {
+                if (isThrottling(e)) {
+                    hotPartitions.record(pending, pending);
+                    throttled();
+                } else if (!e.retryable()) {
+                    LOGGER.warn("Batch write rejected, writing {} items one by one", pending.size(), e);
+                    return writeOneByOne(pending, deadline);
+                }
+                LOGGER.warn("Batch write failed on attempt {}", attempt, e);
+            } catch (RuntimeException e) {
+                LOGGER.warn("Batch write rejected, writing {} items one by one", pending.size(), e);
+                return writeOneByOne(pending, deadline);
+            }
+
+            if (pending.isEmpty()) {
+                return pending;
+            }
+            if (attempt == MAX_ATTEMPTS || !backoff(attempt, deadline)) {
+                LOGGER.error("Giving up on {} unprocessed items after {} attempts", pending.size(), attempt);
+                return pending;
+            }
+        }
+    }
+
+    private List<Item> deadlineExpired(List<Item> pending) {
+        LOGGER.warn("Deadline reached, leaving {} items for redelivery", pending.size());
+        metrics.deadlineSkipped(pending.size());
+        return pending;
+    }
+
+    private void throttled() {
+        rateLimiter.onThrottle();
+        metrics.throttle();
+    }
+
+    static boolean isThrottling(SdkException e) {
+        return e instanceof ProvisionedThroughputExceededException
+                || e instanceof AwsServiceException serviceException
+                && serviceException.awsErrorDetails() != null
+                && serviceException.isThrottlingException();
+    }
+
+    private WriteBatch writeBatch(List<Item> items) {
+        WriteBatch.Builder<Item> builder = WriteBatch.builder(Item.class).mappedTableResource(itemTable);
+        items.forEach(item -> builder.addPutItem(sharding.toStored(item)));
+        return builder.build();
+    }
+
+    // Unprocessed items come back as freshly mapped copies, map them back to the instances we were given
+    private List<Item> originals(List<Item> sent, List<Item> unprocessed) {
+        if (unprocessed.isEmpty()) {
+            return List.of();
+        }
+        Map<ItemKey, Item> byKey = new HashMap<>();
+        sent.forEach(item -> byKey.put(sharding.storedKey(item), item));
+        List<Item> result = new ArrayList<>(unprocessed.size());
+        for (Item item : unprocessed) {
+            result.add(byKey.getOrDefault(ItemKey.of(item), item));
+        }
+        return result;
+    }
+
+    // A non retryable error fails the whole request, isolate the offending items with single puts
+    private List<Item> writeOneByOne(List<Item> items, Deadline deadline) {
+        List<Item> failed = new ArrayList<>();
+        for (int i = 0; i < items.size(); i++) {
+            if (deadline.expired()) {
+                failed.addAll(deadlineExpired(items.subList(i, items.size())));
+                break;
+            }
+            Item item = items.get(i);
+            WriteRateLimiter.Permit permit = rateLimiter.acquire(1, deadline);
+            if (permit == WriteRateLimiter.Permit.PAST_DEADLINE) {
+                failed.addAll(deadlineExpired(items.subList(i, items.size())));
+                break;
+            }
+            if (permit == WriteRateLimiter.Permit.INTERRUPTED) {
+                failed.add(item);
+                continue;
+            }
+            try {
+                itemTable.putItem(sharding.toStored(item));
+                rateLimiter.onSuccess();
+            } catch (Exception e) {
+                if (e instanceof SdkException sdkException && isThrottling(sdkException)) {
+                    hotPartitions.record(List.of(item), List.of(item));
+                    throttled();
+                }
+                LOGGER.error("Error saving item {}", item, e);
+                failed.add(item);
+            }
+        }
+        return failed;
+    }
+
+    // The seed is part of a SnapStart snapshot, so restored instances draw a new one
+    static void reseedJitter() {
+        jitter = new Random();
+    }
+
+    // Exponential backoff with full jitter, never sleeping past the deadline. Returns false when interrupted.
+    static boolean backoff(int attempt, Deadline deadline) {
+        long cap = Math.min(MAX_BACKOFF_MILLIS, BASE_BACKOFF_MILLIS << attempt);
+        long remainingMillis = TimeUnit.NANOSECONDS.toMillis(Math.max(deadline.remainingNanos(), 0));
+        try {
+            Thread.sleep(Math.min(jitter.nextLong(cap + 1), remainingMillis));
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
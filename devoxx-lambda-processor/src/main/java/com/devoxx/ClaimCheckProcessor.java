@@ -0,0 +1,216 @@
+package com.devoxx;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+// Bulk imports: instead of the items, the message body points at an S3 object of NDJSON items,
+// optionally gzip compressed. The object is streamed and written in groups of parallel BatchWriteItem calls,
+// so memory stays bounded by the group size. Progress is checkpointed after every group, a redelivered
+// message (timeout, failed write) resumes after the last checkpoint instead of starting over.
+public class ClaimCheckProcessor {
+
+    private static final Logger LOGGER = LogManager.getLogger(ClaimCheckProcessor.class);
+    // contentType message attribute of a claim check, the body is {"bucket": .., "key": ..}
+    public static final String CONTENT_TYPE = "application/x-s3-claim-check";
+    // Items read before a group is written and checkpointed
+    private static final int GROUP_SIZE = EnvUtil.getInt("CLAIM_CHECK_GROUP_SIZE", 500);
+    // Checkpoints live in the item table under a partition key that never holds items
+    static final String CHECKPOINT_PARTITION_PREFIX = "devoxx-claim-check#";
+    private static final Duration CHECKPOINT_TTL = Duration.ofDays(7);
+
+    private final S3Client s3Client;
+    private final DynamoDbClient dynamoDbClient;
+    private final String tableName;
+    private final ItemWriter itemWriter;
+    private final int groupSize;
+
+    public ClaimCheckProcessor(S3Client s3Client, DynamoDbClient dynamoDbClient, String tableName,
+                               ItemWriter itemWriter) {
+        this(s3Client, dynamoDbClient, tableName, itemWriter, GROUP_SIZE);
+    }
+
+    ClaimCheckProcessor(S3Client s3Client, DynamoDbClient dynamoDbClient, String tableName,
+                        ItemWriter itemWriter, int groupSize) {
+        this.s3Client = s3Client;
+        this.dynamoDbClient = dynamoDbClient;
+        this.tableName = tableName;
+        this.itemWriter = itemWriter;
+        this.groupSize = groupSize;
+    }
+
+    public static boolean isClaimCheck(ItemMessage message) {
+        return message.contentType() != null && CONTENT_TYPE.equalsIgnoreCase(message.contentType().trim());
+    }
+
+    public Import process(ItemMessage message) throws IOException {
+        return process(message, Deadline.NONE);
+    }
+
+    // Imports the referenced object and returns how many items this call read and how many of them the writer
+    // stored. Throws when the import stopped early (failed writes, deadline), the message has to be retried
+    // and resumes from the checkpoint.
+    public Import process(ItemMessage message, Deadline deadline) throws IOException {
+        ClaimCheck claimCheck = ItemJson.MAPPER.readValue(message.body(), ClaimCheck.class);
+        if (claimCheck.bucket() == null || claimCheck.key() == null) {
+            throw new IOException("Claim check needs a bucket and a key");
+        }
+        HeadObjectResponse head = s3Client.headObject(HeadObjectRequest.builder()
+                .bucket(claimCheck.bucket())
+                .key(claimCheck.key())
+                .build());
+        // The ETag is part of the checkpoint, an overwritten object is imported from the start
+        Map<String, AttributeValue> checkpointKey = checkpointKey(claimCheck, head.eTag());
+        Checkpoint checkpoint = loadCheckpoint(checkpointKey);
+        if (checkpoint.completed()) {
+            LOGGER.info("s3://{}/{} was already imported, {} items", claimCheck.bucket(), claimCheck.key(), checkpoint.items());
+            return new Import(0, 0);
+        }
+
+        // Uncompressed objects resume with a range request, gzip streams have to be read from the start
+        long startOffset = Math.max(checkpoint.offset(), 0);
+        GetObjectRequest.Builder request = GetObjectRequest.builder()
+                .bucket(claimCheck.bucket())
+                .key(claimCheck.key())
+                .ifMatch(head.eTag());
+        if (startOffset > 0) {
+            request.range("bytes=" + startOffset + "-");
+        }
+        if (checkpoint.items() > 0) {
+            LOGGER.info("Resuming import of s3://{}/{} after {} items", claimCheck.bucket(), claimCheck.key(), checkpoint.items());
+        }
+
+        long imported = 0;
+        long written = 0;
+        boolean complete = false;
+        ResponseInputStream<GetObjectResponse> object = s3Client.getObject(request.build());
+        try {
+            BufferedInputStream buffered = new BufferedInputStream(object);
+            boolean gzip = isGzip(buffered);
+            InputStream input = gzip ? new GZIPInputStream(buffered, 64 * 1024) : buffered;
+            // Items of a gzip object that were written before are read again and skipped
+            long skip = startOffset > 0 ? 0 : checkpoint.items();
+            long items = checkpoint.items();
+            List<Item> group = new ArrayList<>(groupSize);
+            try (MappingIterator<Item> iterator = ItemJson.READER.readValues(input)) {
+                while (iterator.hasNextValue()) {
+                    Item item = ItemBodyDecoder.checked(iterator.nextValue());
+                    if (skip > 0) {
+                        skip--;
+                        continue;
+                    }
+                    group.add(item);
+                    if (group.size() == groupSize) {
+                        written += writeGroup(group, claimCheck, deadline);
+                        imported += group.size();
+                        items += group.size();
+                        // Offset of the end of the last written item, only meaningful for uncompressed objects
+                        long offset = gzip ? -1 : startOffset + iterator.getParser().currentLocation().getByteOffset();
+                        saveCheckpoint(checkpointKey, new Checkpoint(items, offset, false));
+                        group.clear();
+                    }
+                }
+            }
+            written += writeGroup(group, claimCheck, deadline);
+            imported += group.size();
+            items += group.size();
+            saveCheckpoint(checkpointKey, new Checkpoint(items, -1, true));
+            complete = true;
+            LOGGER.info("Imported {} items from s3://{}/{}", items, claimCheck.bucket(), claimCheck.key());
+            return new Import(imported, written);
+        } finally {
+            if (!complete) {
+                // Do not drain the rest of the object just to reuse the connection
+                object.abort();
+            }
+            object.close();
+        }
+    }
+
+    // Returns the items the writer stored, unchanged items are skipped by a conditional writer
+    private int writeGroup(List<Item> group, ClaimCheck claimCheck, Deadline deadline) throws IOException {
+        if (group.isEmpty()) {
+            return 0;
+        }
+        if (deadline.expired()) {
+            throw new IOException("Deadline reached while importing s3://" + claimCheck.bucket() + "/" + claimCheck.key());
+        }
+        ItemWriter.Result result = itemWriter.writeItems(group, deadline);
+        if (!result.failed().isEmpty()) {
+            throw new IOException(result.failed().size() + " items of s3://" + claimCheck.bucket() + "/"
+                    + claimCheck.key() + " could not be written");
+        }
+        return result.written();
+    }
+
+    // gzip streams start with 0x1f 0x8b, whatever Content-Encoding or key suffix the object has
+    private static boolean isGzip(BufferedInputStream input) throws IOException {
+        input.mark(2);
+        int first = input.read();
+        int second = input.read();
+        input.reset();
+        return first == 0x1f && second == 0x8b;
+    }
+
+    private static Map<String, AttributeValue> checkpointKey(ClaimCheck claimCheck, String eTag) {
+        return Map.of(
+                "companyId", AttributeValue.fromS(CHECKPOINT_PARTITION_PREFIX + claimCheck.bucket()),
+                "uuid", AttributeValue.fromS(claimCheck.key() + "#" + eTag));
+    }
+
+    private Checkpoint loadCheckpoint(Map<String, AttributeValue> key) {
+        Map<String, AttributeValue> item = dynamoDbClient.getItem(GetItemRequest.builder()
+                .tableName(tableName)
+                .key(key)
+                .consistentRead(true)
+                .build()).item();
+        if (item == null || item.isEmpty()) {
+            return new Checkpoint(0, -1, false);
+        }
+        return new Checkpoint(
+                Long.parseLong(item.get("items").n()),
+                Long.parseLong(item.get("offset").n()),
+                item.get("completed").bool());
+    }
+
+    private void saveCheckpoint(Map<String, AttributeValue> key, Checkpoint checkpoint) {
+        Map<String, AttributeValue> item = new HashMap<>(key);
+        item.put("items", AttributeValue.fromN(String.valueOf(checkpoint.items())));
+        item.put("offset", AttributeValue.fromN(String.valueOf(checkpoint.offset())));
+        item.put("completed", AttributeValue.fromBool(checkpoint.completed()));
+        item.put("ttl", AttributeValue.fromN(String.valueOf(Instant.now().plus(CHECKPOINT_TTL).getEpochSecond())));
+        dynamoDbClient.putItem(PutItemRequest.builder().tableName(tableName).item(item).build());
+    }
+
+    record ClaimCheck(String bucket, String key) {
+    }
+
+    // offset is -1 when the import cannot resume with a range request
+    record Checkpoint(long items, long offset, boolean completed) {
+    }
+
+    // items read from the object by this call, written the ones of them the writer stored
+    public record Import(long items, long written) {
+    }
+}
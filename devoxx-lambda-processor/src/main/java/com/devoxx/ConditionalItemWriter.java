@@ -0,0 +1,126 @@
+package com.devoxx;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+// Idempotent writes across containers: every item is stored with the hash of its content and only put when
+// the stored hash differs. BatchWriteItem has no conditions, so this writes item by item, in parallel on the
+// executor. A rejected put still consumes a WCU, but the item is not rewritten and no new version or stream
+// record is produced. Items with the same key are written in order, like BatchItemWriter does.
+public class ConditionalItemWriter implements ItemWriter {
+
+    private static final Logger LOGGER = LogManager.getLogger(ConditionalItemWriter.class);
+    static final String CONTENT_HASH_ATTRIBUTE = "contentHash";
+    static final String CONDITION = "attribute_not_exists(#hash) OR #hash <> :hash";
+
+    private final DynamoDbClient dynamoDbClient;
+    private final String tableName;
+    private final TableSchema<Item> tableSchema;
+    private final Executor executor;
+    private final ItemMetrics metrics;
+    private final WriteRateLimiter rateLimiter;
+    private final WriteSharding sharding;
+
+    public ConditionalItemWriter(DynamoDbClient dynamoDbClient, String tableName, TableSchema<Item> tableSchema,
+                                 Executor executor, ItemMetrics metrics, WriteRateLimiter rateLimiter,
+                                 WriteSharding sharding) {
+        this.dynamoDbClient = dynamoDbClient;
+        this.tableName = tableName;
+        this.tableSchema = tableSchema;
+        this.executor = executor;
+        this.metrics = metrics;
+        this.rateLimiter = rateLimiter;
+        this.sharding = sharding;
+    }
+
+    // An unchanged item is not failed, but not written either
+    @Override
+    public Result writeItems(List<Item> items, Deadline deadline) {
+        List<Item> failed = new ArrayList<>();
+        int written = 0;
+        // Chunks never repeat a key, so only puts of different keys run at the same time
+        for (List<Item> chunk : BatchItemWriter.chunk(items)) {
+            if (deadline.expired()) {
+                metrics.deadlineSkipped(chunk.size());
+                failed.addAll(chunk);
+                continue;
+            }
+            List<CompletableFuture<Outcome>> puts = new ArrayList<>(chunk.size());
+            chunk.forEach(item -> puts.add(CompletableFuture.supplyAsync(() -> put(item, deadline), executor)));
+            for (int i = 0; i < chunk.size(); i++) {
+                switch (puts.get(i).join()) {
+                    case WRITTEN -> written++;
+                    case FAILED -> failed.add(chunk.get(i));
+                    case UNCHANGED -> {
+                    }
+                }
+            }
+        }
+        return new Result(failed, written);
+    }
+
+    // Throttled puts are retried behind the rate limiter like BatchItemWriter does, the SDK leaves them to us
+    private Outcome put(Item item, Deadline deadline) {
+        Map<String, AttributeValue> attributes = new HashMap<>(tableSchema.itemToMap(sharding.toStored(item), true));
+        attributes.put(CONTENT_HASH_ATTRIBUTE, AttributeValue.fromS(IdempotencyCache.contentHash(item)));
+        PutItemRequest request = PutItemRequest.builder()
+                .tableName(tableName)
+                .item(attributes)
+                .conditionExpression(CONDITION)
+                .expressionAttributeNames(Map.of("#hash", CONTENT_HASH_ATTRIBUTE))
+                .expressionAttributeValues(Map.of(":hash", attributes.get(CONTENT_HASH_ATTRIBUTE)))
+                .build();
+        for (int attempt = 1; ; attempt++) {
+            if (attempt > 1) {
+                metrics.retry();
+            }
+            WriteRateLimiter.Permit permit = rateLimiter.acquire(1, deadline);
+            if (permit != WriteRateLimiter.Permit.ACQUIRED) {
+                if (permit == WriteRateLimiter.Permit.PAST_DEADLINE) {
+                    metrics.deadlineSkipped(1);
+                }
+                return Outcome.FAILED;
+            }
+            try {
+                long start = System.nanoTime();
+                dynamoDbClient.putItem(request);
+                metrics.writeLatency(System.nanoTime() - start);
+                rateLimiter.onSuccess();
+                return Outcome.WRITTEN;
+            } catch (ConditionalCheckFailedException e) {
+                metrics.conditionalWriteSkipped();
+                return Outcome.UNCHANGED;
+            } catch (Exception e) {
+                if (!(e instanceof SdkException sdkException && BatchItemWriter.isThrottling(sdkException))) {
+                    LOGGER.error("Error saving item {}", item, e);
+                    return Outcome.FAILED;
+                }
+                rateLimiter.onThrottle();
+                metrics.throttle();
+                if (attempt == BatchItemWriter.MAX_ATTEMPTS || !BatchItemWriter.backoff(attempt, deadline)) {
+                    LOGGER.error("Giving up on item {} after {} throttled attempts", item, attempt, e);
+                    return Outcome.FAILED;
+                }
+            }
+        }
+    }
+
+    private enum Outcome {
+        WRITTEN,
+        UNCHANGED,
+        FAILED
+    }
+}
@@ -0,0 +1,48 @@
+package com.devoxx;
+
+import com.amazonaws.services.lambda.runtime.Context;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+// Time budget of one invocation. A batch that runs into the function timeout is redelivered as a whole,
+// including the items that were already written. Instead, writes are no longer started and retries are
+// abandoned once the budget is used up, and only those records are reported back as failures.
+public class Deadline {
+
+    // Left for a write attempt already in flight (API_CALL_ATTEMPT_TIMEOUT_MS) and for writing the response
+    private static final long RESERVE_MILLIS = EnvUtil.getInt("DEADLINE_RESERVE_MS", 3500);
+    // With short function timeouts the reserve shrinks to this share of the remaining time, a fixed reserve
+    // would leave no budget at all and fail every message
+    private static final int MAX_RESERVE_PERCENT = 25;
+    public static final Deadline NONE = new Deadline(Long.MAX_VALUE, System::nanoTime);
+
+    private final long deadlineNanos;
+    private final LongSupplier nanoTime;
+
+    Deadline(long deadlineNanos, LongSupplier nanoTime) {
+        this.deadlineNanos = deadlineNanos;
+        this.nanoTime = nanoTime;
+    }
+
+    // Without a context (tests, local runs) there is no budget to track
+    public static Deadline of(Context context) {
+        if (context == null) {
+            return NONE;
+        }
+        long budgetMillis = budgetMillis(context.getRemainingTimeInMillis());
+        return new Deadline(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(budgetMillis), System::nanoTime);
+    }
+
+    static long budgetMillis(long remainingMillis) {
+        return remainingMillis - Math.min(RESERVE_MILLIS, remainingMillis * MAX_RESERVE_PERCENT / 100);
+    }
+
+    public boolean expired() {
+        return remainingNanos() <= 0;
+    }
+
+    public long remainingNanos() {
+        return this == NONE ? Long.MAX_VALUE : deadlineNanos - nanoTime.getAsLong();
+    }
+}
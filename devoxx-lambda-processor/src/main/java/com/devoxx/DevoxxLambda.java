@@ -2,71 +2,95 @@ package com.devoxx;
 
 import com.amazonaws.services.lambda.runtime.Context;
 import com.amazonaws.services.lambda.runtime.RequestHandler;
+import com.amazonaws.services.lambda.runtime.events.SQSBatchResponse;
 import com.amazonaws.services.lambda.runtime.events.SQSEvent;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.core.JsonProcessingException;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.crac.Core;
 import org.crac.Resource;
-import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
-import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
-import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
 import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
-import software.amazon.lambda.powertools.logging.Logging;
 
-public class DevoxxLambda implements RequestHandler<SQSEvent, String>, Resource {
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 
-    private static final Logger LOGGER = LogManager.getLogger(DevoxxLambda.class);
-    private static final String TABLE_NAME = System.getenv("TABLE_NAME") != null ? System.getenv("TABLE_NAME") : "Items";
-    private final ObjectMapper objectMapper = new ObjectMapper();
-    private final DynamoDbClient dynamoDbClient;
-    private final DynamoDbEnhancedClient enhancedClient;
+public class DevoxxLambda implements RequestHandler<SQSEvent, SQSBatchResponse>, Resource {
 
-    private static DynamoDbTable<Item> itemTable;
+    private static final Logger LOGGER = LogManager.getLogger(DevoxxLambda.class);
+    private final ItemProcessor itemProcessor;
+    private final EventLogSampler eventLogSampler = new EventLogSampler();
 
     public DevoxxLambda() {
-        dynamoDbClient = AwsSdkClientUtil.createDynamoDbClient();
-        enhancedClient = DynamoDbEnhancedClient.builder()
-                .dynamoDbClient(dynamoDbClient)
-                .build();
-        itemTable = enhancedClient.table(TABLE_NAME, TableSchema.fromBean(Item.class));
+        itemProcessor = new ItemProcessor(AwsSdkClientUtil.createDynamoDbClient(), true);
+        Core.getGlobalContext().register(this);
     }
 
-
-    @Logging(logEvent = true)
     @Override
-    public String handleRequest(SQSEvent event, Context context) {
-        LOGGER.info("Processing {} messages from SQS", event.getRecords().size());
-
-
-        event.getRecords().forEach(record -> {
-            try {
-                Item item = objectMapper.readValue(record.getBody(), Item.class);
-                itemTable.putItem(item);
-                LOGGER.info("Saved item: {}", item);
-            } catch (Exception e) {
-                LOGGER.error("Error processing message", e);
-            }
-        });
-
-        LOGGER.debug("SQS event processing complete");
-        return null;
+    public SQSBatchResponse handleRequest(SQSEvent event, Context context) {
+        Deadline deadline = Deadline.of(context);
+        if (eventLogSampler.sample()) {
+            logEvent(event);
+        }
+        LOGGER.debug("Processing {} messages from SQS", event.getRecords().size());
+
+        List<ItemMessage> messages = new ArrayList<>(event.getRecords().size());
+        event.getRecords().forEach(record -> messages.add(toMessage(record)));
+
+        List<SQSBatchResponse.BatchItemFailure> failures = new ArrayList<>();
+        itemProcessor.process(messages, deadline).forEach(messageId -> failures.add(new SQSBatchResponse.BatchItemFailure(messageId)));
+
+        LOGGER.debug("SQS event processing complete, {} failed messages", failures.size());
+        return new SQSBatchResponse(failures);
+    }
+
+    static ItemMessage toMessage(SQSEvent.SQSMessage record) {
+        long sentTimestamp = record.getAttributes() != null
+                ? ItemMessage.parseSentTimestamp(record.getAttributes().get(ItemMessage.SENT_TIMESTAMP_ATTRIBUTE))
+                : 0;
+        Map<String, SQSEvent.MessageAttribute> attributes = record.getMessageAttributes();
+        if (attributes == null || attributes.isEmpty()) {
+            return new ItemMessage(record.getMessageId(), record.getBody(), null, null, sentTimestamp);
+        }
+        SQSEvent.MessageAttribute contentType = attributes.get(ItemMessage.CONTENT_TYPE_ATTRIBUTE);
+        SQSEvent.MessageAttribute payload = attributes.get(ItemMessage.PAYLOAD_ATTRIBUTE);
+        return new ItemMessage(record.getMessageId(), record.getBody(),
+                contentType != null ? contentType.getStringValue() : null,
+                payload != null && payload.getBinaryValue() != null ? bytes(payload.getBinaryValue()) : null,
+                sentTimestamp);
+    }
+
+    private static byte[] bytes(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.duplicate().get(bytes);
+        return bytes;
+    }
+
+    private static void logEvent(SQSEvent event) {
+        try {
+            LOGGER.info("SQS event: {}", ItemJson.MAPPER.writeValueAsString(event));
+        } catch (JsonProcessingException e) {
+            LOGGER.warn("Could not log SQS event", e);
+        }
     }
 
     @Override
     public void beforeCheckpoint(org.crac.Context<? extends Resource> context) throws Exception {
-
+        prime();
     }
 
     @Override
     public void afterRestore(org.crac.Context<? extends Resource> context) throws Exception {
+        itemProcessor.afterRestore();
+    }
 
+    void prime() throws Exception {
+        itemProcessor.prime();
     }
 
     // For Unit test mocking purposes
     public DevoxxLambda(DynamoDbClient dynamoDbClient) {
-        this.dynamoDbClient = dynamoDbClient;
-        this.enhancedClient = DynamoDbEnhancedClient.builder()
-                .dynamoDbClient(dynamoDbClient)
-                .build();
+        this.itemProcessor = new ItemProcessor(dynamoDbClient, false);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,227 @@
+package com.devoxx;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.RequestStreamHandler;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.crac.Core;
+import org.crac.Resource;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+// Read side of the item table, invoked directly:
+//   {"companyId": "..", "uuid": ".."}                                  -> {"item": {..}} or {"item": null}
+//   {"companyId": "..", "fields": [..], "limit": 100, "nextToken": ".."} -> {"items": [..], "nextToken": ".."}
+// Both are answered from a ReadCache first, repeated reads in a warm container cost no DynamoDB call and concurrent
+// misses of the same lookup share one. A write is seen at the latest READ_CACHE_TTL_SECONDS after it happened.
+// Use com.devoxx.DevoxxReadLambda::handleRequest as handler.
+public class DevoxxReadLambda implements RequestStreamHandler, Resource {
+
+    private static final Logger LOGGER = LogManager.getLogger(DevoxxReadLambda.class);
+    private static final String TABLE_NAME = EnvUtil.get("TABLE_NAME", "Items");
+    // Entries of each cache, lookups and pages are cached separately
+    private static final int CACHE_SIZE = EnvUtil.getInt("READ_CACHE_SIZE", 10_000);
+    private static final int CACHE_TTL_SECONDS = EnvUtil.getInt("READ_CACHE_TTL_SECONDS", 5);
+    static final int DEFAULT_LIMIT = 100;
+    // A Query page is at most 1 MB anyway
+    static final int MAX_LIMIT = 1000;
+    static final Set<String> FIELDS = Set.of("uuid", "companyId", "name", "price", "quantity");
+
+    private final ReadMetrics metrics = new ReadMetrics();
+    private final ReadCache<ItemKey, Item> items = new ReadCache<>(CACHE_SIZE, CACHE_TTL_SECONDS, System::nanoTime, metrics);
+    private final ReadCache<PageKey, ShardedItemReader.ItemPage> pages = new ReadCache<>(CACHE_SIZE, CACHE_TTL_SECONDS,
+            System::nanoTime, metrics);
+    private final WriteSharding sharding = new WriteSharding();
+    // Clients created by the handler itself are rebuilt after a SnapStart restore, injected ones are left alone
+    private final boolean ownsClient;
+    private DynamoDbClient dynamoDbClient;
+    private ShardedItemReader reader;
+
+    public DevoxxReadLambda() {
+        this.ownsClient = true;
+        initClient(AwsSdkClientUtil.createDynamoDbReadClient());
+        Core.getGlobalContext().register(this);
+    }
+
+    @Override
+    public void handleRequest(InputStream input, OutputStream output, Context context) throws IOException {
+        ReadRequest request = readRequest(input);
+        try {
+            if (request.uuid() != null) {
+                Item item = items.get(new ItemKey(request.companyId(), request.uuid()),
+                        key -> reader.getItem(key.companyId(), key.uuid()));
+                writeItem(item, output);
+            } else {
+                PageKey key = new PageKey(request.companyId(), request.fields(), request.limit(), request.nextToken());
+                ShardedItemReader.ItemPage page = pages.get(key,
+                        k -> reader.queryPage(k.companyId(), k.limit(), k.fields(), k.nextToken()));
+                writePage(page, request.fields(), output);
+            }
+        } finally {
+            LOGGER.debug("Cache hit ratio {}%", metrics.hitRatio());
+            metrics.flush();
+        }
+    }
+
+    static ReadRequest readRequest(InputStream input) throws IOException {
+        String companyId = null;
+        String uuid = null;
+        Set<String> fields = new TreeSet<>();
+        int limit = DEFAULT_LIMIT;
+        String nextToken = null;
+        try (JsonParser parser = ItemJson.MAPPER.getFactory().createParser(input)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IllegalArgumentException("Expected a read request object");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                parser.nextToken();
+                switch (field) {
+                    case "companyId" -> companyId = parser.getValueAsString();
+                    case "uuid" -> uuid = parser.getValueAsString();
+                    case "limit" -> limit = parser.getValueAsInt(DEFAULT_LIMIT);
+                    case "nextToken" -> nextToken = parser.getValueAsString();
+                    case "fields" -> {
+                        if (parser.currentToken() != JsonToken.START_ARRAY) {
+                            throw new IllegalArgumentException("fields must be an array");
+                        }
+                        while (parser.nextToken() != JsonToken.END_ARRAY) {
+                            String name = parser.getValueAsString();
+                            if (!FIELDS.contains(name)) {
+                                throw new IllegalArgumentException("Unknown field: " + name);
+                            }
+                            fields.add(name);
+                        }
+                    }
+                    default -> parser.skipChildren();
+                }
+            }
+        }
+        if (companyId == null || companyId.isEmpty()) {
+            throw new IllegalArgumentException("companyId is required");
+        }
+        // Shards, aggregates and claim check checkpoints (all with the separator) and the priming key hold no items
+        // of a company, they are not exposed
+        if (WriteSharding.reservedCompanyId(companyId)) {
+            throw new IllegalArgumentException("Invalid companyId: " + companyId);
+        }
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_LIMIT);
+        }
+        // Sorted, requests that only differ in the order of the fields share a cache entry
+        return new ReadRequest(companyId, uuid, List.copyOf(fields), limit, nextToken);
+    }
+
+    static void writeItem(Item item, OutputStream output) throws IOException {
+        try (JsonGenerator generator = ItemJson.MAPPER.getFactory().createGenerator(output)) {
+            generator.configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false);
+            generator.writeStartObject();
+            generator.writeFieldName("item");
+            if (item == null) {
+                generator.writeNull();
+            } else {
+                writeFields(item, List.of(), generator);
+            }
+            generator.writeEndObject();
+        }
+    }
+
+    // Only the fields asked for, unprojected attributes would otherwise show up as null or 0
+    static void writePage(ShardedItemReader.ItemPage page, List<String> fields, OutputStream output) throws IOException {
+        try (JsonGenerator generator = ItemJson.MAPPER.getFactory().createGenerator(output)) {
+            generator.configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false);
+            generator.writeStartObject();
+            generator.writeArrayFieldStart("items");
+            for (Item item : page.items()) {
+                writeFields(item, fields, generator);
+            }
+            generator.writeEndArray();
+            if (page.nextToken() != null) {
+                generator.writeStringField("nextToken", page.nextToken());
+            }
+            generator.writeEndObject();
+        }
+    }
+
+    private static void writeFields(Item item, List<String> fields, JsonGenerator generator) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("uuid", item.getUuid());
+        generator.writeStringField("companyId", item.getCompanyId());
+        if (fields.isEmpty() || fields.contains("name")) {
+            generator.writeStringField("name", item.getName());
+        }
+        if (fields.isEmpty() || fields.contains("price")) {
+            generator.writeNumberField("price", item.getPrice());
+        }
+        if (fields.isEmpty() || fields.contains("quantity")) {
+            generator.writeNumberField("quantity", item.getQuantity());
+        }
+        generator.writeEndObject();
+    }
+
+    @Override
+    public void beforeCheckpoint(org.crac.Context<? extends Resource> context) throws Exception {
+        prime();
+    }
+
+    @Override
+    public void afterRestore(org.crac.Context<? extends Resource> context) throws Exception {
+        // Pooled connections and cached credentials from the snapshot are stale, start with a fresh client
+        if (ownsClient) {
+            DynamoDbClient staleClient = dynamoDbClient;
+            initClient(AwsSdkClientUtil.createDynamoDbReadClient());
+            staleClient.close();
+        }
+        // Whatever was read before the snapshot is older than the TTL by now
+        items.clear();
+        pages.clear();
+        LOGGER.info("Restored from snapshot");
+    }
+
+    // Loads the parser, generator and table schema classes without touching DynamoDB, so any valid companyId will do
+    void prime() throws Exception {
+        String request = "{\"companyId\":\"devoxx\",\"fields\":[\"name\"],\"limit\":1}";
+        ReadRequest priming = readRequest(new ByteArrayInputStream(request.getBytes(StandardCharsets.UTF_8)));
+        Item item = new Item("devoxx-priming", ItemProcessor.PRIMING_COMPANY_ID, "Priming", 1.0, 1);
+        ItemTableSchema.INSTANCE.mapToItem(ItemTableSchema.INSTANCE.itemToMap(item, true));
+        writeItem(item, new ByteArrayOutputStream());
+        writePage(new ShardedItemReader.ItemPage(List.of(item), null), priming.fields(),
+                new ByteArrayOutputStream());
+        LOGGER.info("Primed read handler before checkpoint");
+    }
+
+    private void initClient(DynamoDbClient dynamoDbClient) {
+        this.dynamoDbClient = dynamoDbClient;
+        DynamoDbEnhancedClient enhancedClient = DynamoDbEnhancedClient.builder()
+                .dynamoDbClient(dynamoDbClient)
+                .build();
+        // A page is a single Query, nothing to run in parallel
+        this.reader = new ShardedItemReader(enhancedClient.table(TABLE_NAME, ItemTableSchema.INSTANCE), sharding,
+                Runnable::run);
+    }
+
+    // For Unit test mocking purposes
+    public DevoxxReadLambda(DynamoDbClient dynamoDbClient) {
+        this.ownsClient = false;
+        initClient(dynamoDbClient);
+    }
+
+    record ReadRequest(String companyId, String uuid, List<String> fields, int limit, String nextToken) {
+    }
+
+    private record PageKey(String companyId, List<String> fields, int limit, String nextToken) {
+    }
+}
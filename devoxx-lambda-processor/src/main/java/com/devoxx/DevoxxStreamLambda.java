@@ -0,0 +1,178 @@
+package com.devoxx;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.RequestStreamHandler;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.crac.Core;
+import org.crac.Resource;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+// Fast path for SQS events: reads the raw payload once with a streaming parser and keeps only
+// messageId, body and the attributes the processor uses of every record, instead of letting the runtime
+// build SQSEvent/SQSMessage objects.
+// Use com.devoxx.DevoxxStreamLambda::handleRequest as handler, DevoxxLambda stays for compatibility.
+public class DevoxxStreamLambda implements RequestStreamHandler, Resource {
+
+    private static final Logger LOGGER = LogManager.getLogger(DevoxxStreamLambda.class);
+    private final ItemProcessor itemProcessor;
+    private final EventLogSampler eventLogSampler = new EventLogSampler();
+
+    public DevoxxStreamLambda() {
+        itemProcessor = new ItemProcessor(AwsSdkClientUtil.createDynamoDbClient(), true);
+        Core.getGlobalContext().register(this);
+    }
+
+    @Override
+    public void handleRequest(InputStream input, OutputStream output, Context context) throws IOException {
+        Deadline deadline = Deadline.of(context);
+        List<ItemMessage> messages = readMessages(input);
+        if (eventLogSampler.sample()) {
+            // Only messageId and body are kept from the raw event
+            LOGGER.info("SQS messages: {}", ItemJson.MAPPER.writeValueAsString(messages));
+        }
+        LOGGER.debug("Processing {} messages from SQS", messages.size());
+
+        List<String> failures = itemProcessor.process(messages, deadline);
+
+        LOGGER.debug("SQS event processing complete, {} failed messages", failures.size());
+        writeResponse(failures, output);
+    }
+
+    static List<ItemMessage> readMessages(InputStream input) throws IOException {
+        List<ItemMessage> messages = new ArrayList<>();
+        try (JsonParser parser = ItemJson.MAPPER.getFactory().createParser(input)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Expected an SQS event object");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                parser.nextToken();
+                if ("Records".equals(field) && parser.currentToken() == JsonToken.START_ARRAY) {
+                    while (parser.nextToken() == JsonToken.START_OBJECT) {
+                        messages.add(readRecord(parser));
+                    }
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+        return messages;
+    }
+
+    private static ItemMessage readRecord(JsonParser parser) throws IOException {
+        String messageId = null;
+        String body = null;
+        String contentType = null;
+        byte[] payload = null;
+        long sentTimestamp = 0;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            switch (field) {
+                case "messageId" -> messageId = parser.getValueAsString();
+                case "body" -> body = parser.getValueAsString();
+                case "messageAttributes" -> {
+                    if (parser.currentToken() != JsonToken.START_OBJECT) {
+                        break;
+                    }
+                    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                        String attribute = parser.currentName();
+                        parser.nextToken();
+                        if (ItemMessage.CONTENT_TYPE_ATTRIBUTE.equals(attribute)) {
+                            contentType = readAttributeValue(parser, "stringValue");
+                        } else if (ItemMessage.PAYLOAD_ATTRIBUTE.equals(attribute)) {
+                            String binaryValue = readAttributeValue(parser, "binaryValue");
+                            payload = binaryValue != null ? Base64.getDecoder().decode(binaryValue) : null;
+                        } else {
+                            parser.skipChildren();
+                        }
+                    }
+                }
+                case "attributes" -> {
+                    if (parser.currentToken() != JsonToken.START_OBJECT) {
+                        break;
+                    }
+                    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                        String attribute = parser.currentName();
+                        parser.nextToken();
+                        if (ItemMessage.SENT_TIMESTAMP_ATTRIBUTE.equals(attribute)) {
+                            sentTimestamp = ItemMessage.parseSentTimestamp(parser.getValueAsString());
+                        } else {
+                            parser.skipChildren();
+                        }
+                    }
+                }
+                default -> parser.skipChildren();
+            }
+        }
+        return new ItemMessage(messageId, body, contentType, payload, sentTimestamp);
+    }
+
+    // {"stringValue": .., "binaryValue": .., "dataType": ..}, binary values are base64 text in the event
+    private static String readAttributeValue(JsonParser parser, String valueField) throws IOException {
+        String value = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            if (valueField.equals(field)) {
+                value = parser.getValueAsString();
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return value;
+    }
+
+    // Same JSON as a serialized SQSBatchResponse
+    static void writeResponse(List<String> failures, OutputStream output) throws IOException {
+        try (JsonGenerator generator = ItemJson.MAPPER.getFactory().createGenerator(output)) {
+            generator.configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false);
+            generator.writeStartObject();
+            generator.writeArrayFieldStart("batchItemFailures");
+            for (String messageId : failures) {
+                generator.writeStartObject();
+                generator.writeStringField("itemIdentifier", messageId);
+                generator.writeEndObject();
+            }
+            generator.writeEndArray();
+            generator.writeEndObject();
+        }
+    }
+
+    @Override
+    public void beforeCheckpoint(org.crac.Context<? extends Resource> context) throws Exception {
+        prime();
+    }
+
+    @Override
+    public void afterRestore(org.crac.Context<? extends Resource> context) throws Exception {
+        itemProcessor.afterRestore();
+    }
+
+    void prime() throws Exception {
+        itemProcessor.prime();
+        String event = "{\"Records\":[{\"messageId\":\"priming\",\"body\":"
+                + ItemJson.MAPPER.writeValueAsString(ItemProcessor.PRIMING_BODY) + ",\"attributes\":{}}]}";
+        List<ItemMessage> messages = readMessages(new ByteArrayInputStream(event.getBytes(StandardCharsets.UTF_8)));
+        writeResponse(List.of(messages.get(0).messageId()), new ByteArrayOutputStream());
+    }
+
+    // For Unit test mocking purposes
+    public DevoxxStreamLambda(DynamoDbClient dynamoDbClient) {
+        this.itemProcessor = new ItemProcessor(dynamoDbClient, false);
+    }
+}
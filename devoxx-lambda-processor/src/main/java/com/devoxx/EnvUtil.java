@@ -0,0 +1,14 @@
+package com.devoxx;
+
+public class EnvUtil {
+
+    // Lambda configuration comes from env variables, tests can fall back to system properties
+    public static String get(String name, String defaultValue) {
+        String value = System.getenv(name) != null ? System.getenv(name) : System.getProperty(name);
+        return value != null && !value.isBlank() ? value : defaultValue;
+    }
+
+    public static int getInt(String name, int defaultValue) {
+        return Integer.parseInt(get(name, String.valueOf(defaultValue)));
+    }
+}
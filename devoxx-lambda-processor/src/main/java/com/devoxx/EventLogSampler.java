@@ -0,0 +1,22 @@
+package com.devoxx;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+// Decides which invocations log their whole event. Serializing every SQS event costs more than
+// processing small batches, so by default no event is logged and EVENT_LOG_SAMPLE_RATE=0.01 logs 1% of them.
+public class EventLogSampler {
+
+    private final double sampleRate;
+
+    public EventLogSampler() {
+        this(Double.parseDouble(EnvUtil.get("EVENT_LOG_SAMPLE_RATE", "0")));
+    }
+
+    public EventLogSampler(double sampleRate) {
+        this.sampleRate = sampleRate;
+    }
+
+    public boolean sample() {
+        return sampleRate > 0 && (sampleRate >= 1 || ThreadLocalRandom.current().nextDouble() < sampleRate);
+    }
+}
@@ -0,0 +1,87 @@
+package com.devoxx;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+// Counts writes and throttled writes per companyId in one second windows. A company is reported as hot when it
+// was throttled or wrote faster than HOT_PARTITION_WRITES_PER_SECOND, a single partition takes 1000 WCU/s.
+// A window closes once a second has passed or at the end of the batch, whichever comes first, so it never spans
+// the idle time between invocations and is reported by the invocation that did the writes.
+public class HotPartitionDetector {
+
+    private static final Logger LOGGER = LogManager.getLogger(HotPartitionDetector.class);
+    private static final long WINDOW_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final int threshold;
+    private final ItemMetrics metrics;
+    private final LongSupplier nanoTime;
+    // companyId -> {writes, throttled writes} of the current window
+    private final Map<String, long[]> window = new HashMap<>();
+    private long windowStart;
+    private Set<String> hotPartitions = Set.of();
+
+    public HotPartitionDetector(ItemMetrics metrics) {
+        this(EnvUtil.getInt("HOT_PARTITION_WRITES_PER_SECOND", 800), metrics, System::nanoTime);
+    }
+
+    HotPartitionDetector(int threshold, ItemMetrics metrics, LongSupplier nanoTime) {
+        this.threshold = threshold;
+        this.metrics = metrics;
+        this.nanoTime = nanoTime;
+        this.windowStart = nanoTime.getAsLong();
+    }
+
+    // One write attempt: the items sent and the ones DynamoDB throttled
+    public synchronized void record(List<Item> written, List<Item> throttled) {
+        long now = nanoTime.getAsLong();
+        if (window.isEmpty()) {
+            // Nothing written since the last window closed, the window starts with this write
+            if (now - windowStart >= WINDOW_NANOS) {
+                hotPartitions = Set.of();
+            }
+            windowStart = now;
+        } else if (now - windowStart >= WINDOW_NANOS) {
+            closeWindow(now);
+        }
+        written.forEach(item -> window.computeIfAbsent(item.getCompanyId(), k -> new long[2])[0]++);
+        throttled.forEach(item -> window.computeIfAbsent(item.getCompanyId(), k -> new long[2])[1]++);
+    }
+
+    // Hot partitions of the last completed window
+    public synchronized Set<String> hotPartitions() {
+        return hotPartitions;
+    }
+
+    // Called at the end of every batch, the metric goes out with the batch that did the writes
+    public synchronized void endBatch() {
+        if (!window.isEmpty()) {
+            closeWindow(nanoTime.getAsLong());
+        }
+    }
+
+    // Every write of the window happened within a second of its start, however late it is closed,
+    // so the counts are the per second rates. A window cut short by the end of a batch is not extrapolated.
+    private void closeWindow(long now) {
+        Set<String> hot = new TreeSet<>();
+        window.forEach((companyId, counts) -> {
+            long writesPerSecond = counts[0];
+            if (counts[1] > 0 || writesPerSecond >= threshold) {
+                LOGGER.warn("Hot partition companyId={}: {} writes/s, {} throttled", companyId,
+                        writesPerSecond, counts[1]);
+                hot.add(companyId);
+            }
+        });
+        metrics.hotPartitions(hot.size());
+        hotPartitions = hot;
+        window.clear();
+        windowStart = now;
+    }
+}
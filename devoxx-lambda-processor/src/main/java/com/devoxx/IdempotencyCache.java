@@ -0,0 +1,100 @@
+package com.devoxx;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+// Remembers in the warm container which messages were fully processed and what content was last written
+// for every key, so redelivered messages and byte-identical items are not written again.
+// Both maps are size-capped LRUs. Entries also expire: a later update of the same key handled by another
+// container is not seen here, the TTL bounds how long an older copy can be mistaken for the stored one.
+// IDEMPOTENCY_CONDITIONAL_WRITES covers that case in DynamoDB, see ConditionalItemWriter.
+public class IdempotencyCache {
+
+    private final int capacity;
+    private final long ttlNanos;
+    private final LongSupplier nanoTime;
+    // messageId -> expiry
+    private final Map<String, Long> messages;
+    private final Map<ItemKey, Entry> items;
+
+    public IdempotencyCache() {
+        this(EnvUtil.getInt("IDEMPOTENCY_CACHE_SIZE", 10000), EnvUtil.getInt("IDEMPOTENCY_CACHE_TTL_SECONDS", 300),
+                System::nanoTime);
+    }
+
+    IdempotencyCache(int capacity, int ttlSeconds, LongSupplier nanoTime) {
+        this.capacity = capacity;
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+        this.nanoTime = nanoTime;
+        this.messages = lru(capacity);
+        this.items = lru(capacity);
+    }
+
+    // IDEMPOTENCY_CACHE_SIZE=0 turns the cache off
+    public boolean enabled() {
+        return capacity > 0;
+    }
+
+    public synchronized boolean processedMessage(String messageId) {
+        Long expiry = messageId != null ? messages.get(messageId) : null;
+        return expiry != null && !expired(expiry);
+    }
+
+    public synchronized void messageProcessed(String messageId) {
+        if (enabled() && messageId != null) {
+            messages.put(messageId, nanoTime.getAsLong() + ttlNanos);
+        }
+    }
+
+    // True when exactly this content was written for the key before
+    public synchronized boolean unchanged(Item item, String contentHash) {
+        Entry entry = items.get(ItemKey.of(item));
+        return entry != null && !expired(entry.expiry()) && entry.contentHash().equals(contentHash);
+    }
+
+    public synchronized void written(Item item, String contentHash) {
+        if (enabled()) {
+            items.put(ItemKey.of(item), new Entry(contentHash, nanoTime.getAsLong() + ttlNanos));
+        }
+    }
+
+    public synchronized void clear() {
+        messages.clear();
+        items.clear();
+    }
+
+    // First 128 bits of the SHA-256 of the item JSON, key and all attributes included
+    static String contentHash(Item item) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(ItemJson.WRITER.writeValueAsBytes(item));
+            return HexFormat.of().formatHex(digest, 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private boolean expired(long expiry) {
+        return nanoTime.getAsLong() - expiry > 0;
+    }
+
+    private static <K, V> Map<K, V> lru(int capacity) {
+        return new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    private record Entry(String contentHash, long expiry) {
+    }
+}
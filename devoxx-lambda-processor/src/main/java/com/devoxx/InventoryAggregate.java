@@ -0,0 +1,37 @@
+package com.devoxx;
+
+import java.math.BigDecimal;
+
+// Stock totals of a company, or the change an item write makes to them. The value is kept as a decimal,
+// DynamoDB adds numbers exactly and summing doubles would drift over millions of updates.
+public record InventoryAggregate(String companyId, long itemCount, long totalQuantity, BigDecimal stockValue) {
+
+    public static InventoryAggregate empty(String companyId) {
+        return new InventoryAggregate(companyId, 0, 0, BigDecimal.ZERO);
+    }
+
+    public static InventoryAggregate of(Item item) {
+        return new InventoryAggregate(item.getCompanyId(), 1, item.getQuantity(),
+                BigDecimal.valueOf(item.getPrice()).multiply(BigDecimal.valueOf(item.getQuantity())));
+    }
+
+    // Change of the totals when current replaces previous, previous is null for a new item
+    public static InventoryAggregate delta(Item previous, Item current) {
+        InventoryAggregate added = of(current);
+        if (previous == null) {
+            return added;
+        }
+        InventoryAggregate removed = of(previous);
+        return new InventoryAggregate(current.getCompanyId(), 0, added.totalQuantity - removed.totalQuantity,
+                added.stockValue.subtract(removed.stockValue));
+    }
+
+    public InventoryAggregate plus(InventoryAggregate other) {
+        return new InventoryAggregate(companyId, itemCount + other.itemCount, totalQuantity + other.totalQuantity,
+                stockValue.add(other.stockValue));
+    }
+
+    public boolean isZero() {
+        return itemCount == 0 && totalQuantity == 0 && stockValue.signum() == 0;
+    }
+}
@@ -0,0 +1,63 @@
+package com.devoxx;
+
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.Update;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+// Per company stock totals for the dashboards, so they do not have to Query every item of a company.
+// One record per company lives in the item table under a partition key that never holds items, it is changed
+// with atomic ADDs only, so containers applying their deltas at the same time never lose each other's updates,
+// and read with a single GetItem.
+public class InventoryAggregates {
+
+    static final String PARTITION_PREFIX = "devoxx-aggregate#";
+    static final String SORT_KEY = "aggregate";
+    private static final String UPDATE = "ADD itemCount :count, totalQuantity :quantity, stockValue :value";
+
+    private final DynamoDbClient dynamoDbClient;
+    private final String tableName;
+
+    public InventoryAggregates(DynamoDbClient dynamoDbClient, String tableName) {
+        this.dynamoDbClient = dynamoDbClient;
+        this.tableName = tableName;
+    }
+
+    // The ADD of a delta, AggregatingItemWriter runs it in the transaction that writes the items it came from,
+    // so the totals change exactly when the items do
+    public Update update(InventoryAggregate delta) {
+        return Update.builder()
+                .tableName(tableName)
+                .key(key(delta.companyId()))
+                .updateExpression(UPDATE)
+                .expressionAttributeValues(Map.of(
+                        ":count", AttributeValue.fromN(String.valueOf(delta.itemCount())),
+                        ":quantity", AttributeValue.fromN(String.valueOf(delta.totalQuantity())),
+                        ":value", AttributeValue.fromN(delta.stockValue().toPlainString())))
+                .build();
+    }
+
+    // Totals of a company, all zero before its first item
+    public InventoryAggregate get(String companyId) {
+        Map<String, AttributeValue> item = dynamoDbClient.getItem(GetItemRequest.builder()
+                .tableName(tableName)
+                .key(key(companyId))
+                .build()).item();
+        if (item == null || item.isEmpty()) {
+            return InventoryAggregate.empty(companyId);
+        }
+        return new InventoryAggregate(companyId,
+                Long.parseLong(item.get("itemCount").n()),
+                Long.parseLong(item.get("totalQuantity").n()),
+                new BigDecimal(item.get("stockValue").n()));
+    }
+
+    private static Map<String, AttributeValue> key(String companyId) {
+        return Map.of(
+                "companyId", AttributeValue.fromS(PARTITION_PREFIX + companyId),
+                "uuid", AttributeValue.fromS(SORT_KEY));
+    }
+}
@@ -0,0 +1,66 @@
+package com.devoxx;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+// A message body holds a single Item, a JSON array of Items or newline delimited Items (NDJSON), so producers
+// can pack many small items into one SQS message. The format follows from the first token: MappingIterator
+// unwraps a leading '[' and otherwise reads root level values one after another, no intermediate tree is built.
+public class ItemBodyDecoder {
+
+    // Picks the encoding from the contentType attribute, binary encodings come base64 encoded in the body
+    // or as raw bytes in the payload attribute
+    public static List<Item> decode(ItemMessage message) throws IOException {
+        ItemContentType contentType = ItemContentType.of(message.contentType());
+        if (message.payload() != null) {
+            return decodeBinary(contentType, message.payload());
+        }
+        if (contentType.binary()) {
+            return decodeBinary(contentType, Base64.getMimeDecoder().decode(message.body()));
+        }
+        return decode(message.body());
+    }
+
+    public static List<Item> decode(String body) throws IOException {
+        List<Item> items = readAll(ItemJson.READER.readValues(body));
+        // "[]" is a valid empty batch, an empty body is not
+        if (items.isEmpty() && !body.stripLeading().startsWith("[")) {
+            throw new IOException("Message body contains no item");
+        }
+        return items;
+    }
+
+    private static List<Item> decodeBinary(ItemContentType contentType, byte[] body) throws IOException {
+        List<Item> items = readAll(contentType.reader().readValues(body));
+        if (items.isEmpty()) {
+            throw new IOException("Message body contains no item");
+        }
+        return items;
+    }
+
+    private static List<Item> readAll(MappingIterator<Item> values) throws IOException {
+        List<Item> items = new ArrayList<>(1);
+        try (MappingIterator<Item> iterator = values) {
+            while (iterator.hasNextValue()) {
+                items.add(checked(iterator.nextValue()));
+            }
+        }
+        return items;
+    }
+
+    // companyIds with the shard separator or the prefix of an internal record are rejected before anything
+    // is written, see WriteSharding
+    static Item checked(Item item) throws IOException {
+        if (WriteSharding.reservedCompanyId(item.getCompanyId())) {
+            throw new IOException("companyId is reserved: " + item.getCompanyId());
+        }
+        return item;
+    }
+
+    private ItemBodyDecoder() {
+    }
+}
@@ -0,0 +1,26 @@
+package com.devoxx;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+
+// Bursty producers send several updates of the same key within one SQS batch. Only the latest one is written,
+// ordered by SentTimestamp and, for equal timestamps, by position in the batch. Superseded items count as
+// written, their value would have been overwritten by the later item anyway.
+public class ItemCoalescer {
+
+    // Keeps the latest item per key, in the order the keys first appear
+    public static List<Item> coalesce(List<Item> items, ToLongFunction<Item> sentTimestamp) {
+        Map<ItemKey, Item> latest = new LinkedHashMap<>();
+        for (Item item : items) {
+            latest.merge(ItemKey.of(item), item, (current, candidate) ->
+                    sentTimestamp.applyAsLong(candidate) >= sentTimestamp.applyAsLong(current) ? candidate : current);
+        }
+        return latest.size() == items.size() ? items : new ArrayList<>(latest.values());
+    }
+
+    private ItemCoalescer() {
+    }
+}
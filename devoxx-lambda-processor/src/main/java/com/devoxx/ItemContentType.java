@@ -0,0 +1,91 @@
+package com.devoxx;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+
+import java.io.IOException;
+
+// Encodings of Item message bodies. Binary encodings skip the text parsing and are smaller than JSON,
+// in the SQS body they are base64 encoded. Mappers are built on first use, JSON only consumers never load them.
+public enum ItemContentType {
+
+    JSON("application/json") {
+        @Override
+        public ObjectReader reader() {
+            return ItemJson.READER;
+        }
+
+        @Override
+        public ObjectWriter writer() {
+            return ItemJson.WRITER;
+        }
+    },
+    SMILE("application/x-jackson-smile") {
+        @Override
+        public ObjectReader reader() {
+            return Smile.READER;
+        }
+
+        @Override
+        public ObjectWriter writer() {
+            return Smile.WRITER;
+        }
+    },
+    CBOR("application/cbor") {
+        @Override
+        public ObjectReader reader() {
+            return Cbor.READER;
+        }
+
+        @Override
+        public ObjectWriter writer() {
+            return Cbor.WRITER;
+        }
+    };
+
+    private final String mimeType;
+
+    ItemContentType(String mimeType) {
+        this.mimeType = mimeType;
+    }
+
+    public abstract ObjectReader reader();
+
+    public abstract ObjectWriter writer();
+
+    public String mimeType() {
+        return mimeType;
+    }
+
+    public boolean binary() {
+        return this != JSON;
+    }
+
+    // Messages without the attribute are JSON
+    public static ItemContentType of(String mimeType) throws IOException {
+        if (mimeType == null || mimeType.isBlank()) {
+            return JSON;
+        }
+        for (ItemContentType contentType : values()) {
+            if (contentType.mimeType.equalsIgnoreCase(mimeType)) {
+                return contentType;
+            }
+        }
+        throw new IOException("Unsupported content type " + mimeType);
+    }
+
+    private static class Smile {
+        static final ObjectMapper MAPPER = new SmileMapper();
+        static final ObjectReader READER = MAPPER.readerFor(Item.class);
+        static final ObjectWriter WRITER = MAPPER.writerFor(Item.class);
+    }
+
+    private static class Cbor {
+        static final ObjectMapper MAPPER = new CBORMapper();
+        static final ObjectReader READER = MAPPER.readerFor(Item.class);
+        static final ObjectWriter WRITER = MAPPER.writerFor(Item.class);
+    }
+}
@@ -0,0 +1,38 @@
+package com.devoxx;
+
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+
+// For producers: encodes items the way ItemBodyDecoder reads them. Send the result as message body
+// (or the raw bytes as binary "payload" attribute) together with the contentType attribute set to mimeType().
+public class ItemEncoder {
+
+    // One item is a single value, several items follow each other (NDJSON for JSON)
+    public static byte[] encode(List<Item> items, ItemContentType contentType) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream(64 * items.size());
+        ObjectWriter itemWriter = contentType.binary()
+                ? contentType.writer()
+                : contentType.writer().withRootValueSeparator("\n");
+        try (SequenceWriter writer = itemWriter.writeValues(output)) {
+            writer.writeAll(items);
+        }
+        return output.toByteArray();
+    }
+
+    // SQS bodies are text, binary encodings are base64 encoded
+    public static String encodeBody(List<Item> items, ItemContentType contentType) throws IOException {
+        byte[] encoded = encode(items, contentType);
+        return contentType.binary()
+                ? Base64.getEncoder().encodeToString(encoded)
+                : new String(encoded, StandardCharsets.UTF_8);
+    }
+
+    private ItemEncoder() {
+    }
+}
@@ -0,0 +1,16 @@
+package com.devoxx;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+// Readers and writers are immutable and thread safe, building them once skips the per call lookups of ObjectMapper
+public class ItemJson {
+
+    public static final ObjectMapper MAPPER = new ObjectMapper();
+    public static final ObjectReader READER = MAPPER.readerFor(Item.class);
+    public static final ObjectWriter WRITER = MAPPER.writerFor(Item.class);
+
+    private ItemJson() {
+    }
+}
@@ -0,0 +1,9 @@
+package com.devoxx;
+
+// Primary key of an Item in the Items table (companyId partition key, uuid sort key)
+public record ItemKey(String companyId, String uuid) {
+
+    public static ItemKey of(Item item) {
+        return new ItemKey(item.getCompanyId(), item.getUuid());
+    }
+}
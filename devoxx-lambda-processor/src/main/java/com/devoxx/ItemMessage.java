@@ -0,0 +1,31 @@
+package com.devoxx;
+
+// The parts of an SQS message the processor needs, independent of how the event was deserialized.
+// contentType and payload come from the message attributes of the same name and may be null.
+// sentTimestamp is the SentTimestamp system attribute in epoch millis, 0 when unknown.
+public record ItemMessage(String messageId, String body, String contentType, byte[] payload, long sentTimestamp) {
+
+    // Message attribute selecting the body encoding, see ItemContentType
+    public static final String CONTENT_TYPE_ATTRIBUTE = "contentType";
+    // Optional binary message attribute carrying the encoded items instead of a base64 body
+    public static final String PAYLOAD_ATTRIBUTE = "payload";
+
+    // SQS system attribute, the time the message was sent to the queue
+    public static final String SENT_TIMESTAMP_ATTRIBUTE = "SentTimestamp";
+
+    public ItemMessage(String messageId, String body) {
+        this(messageId, body, null, null);
+    }
+
+    public ItemMessage(String messageId, String body, String contentType, byte[] payload) {
+        this(messageId, body, contentType, payload, 0);
+    }
+
+    static long parseSentTimestamp(String value) {
+        try {
+            return value != null ? Long.parseLong(value) : 0;
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package com.devoxx;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Per invocation metrics written to stdout in CloudWatch Embedded Metric Format, Lambda ships the line
+// to CloudWatch Logs and CloudWatch extracts the metrics from it, no PutMetricData calls on the hot path.
+// Recording only updates counters, so it is safe to call from the writer threads and cheap enough to stay on.
+public class ItemMetrics {
+
+    private static final boolean ENABLED = Boolean.parseBoolean(EnvUtil.get("METRICS_ENABLED", "true"));
+    private static final String NAMESPACE = EnvUtil.get("METRICS_NAMESPACE", "DevoxxLambda");
+    private static final String FUNCTION_NAME = EnvUtil.get("AWS_LAMBDA_FUNCTION_NAME", "local");
+    // Upper bounds in milliseconds of the write latency histogram buckets, the last one catches everything slower
+    static final long[] LATENCY_BUCKETS = {1, 2, 5, 10, 20, 50, 100, 200, 500, 1000, 2000, 5000, 10000};
+
+    private final AtomicLongArray latencyCounts = new AtomicLongArray(LATENCY_BUCKETS.length);
+    private final AtomicLong writeNanos = new AtomicLong();
+    private final AtomicLong maxWriteNanos = new AtomicLong();
+    private final AtomicLong minWriteNanos = new AtomicLong(Long.MAX_VALUE);
+    private final AtomicLong retries = new AtomicLong();
+    private final AtomicLong unprocessedItems = new AtomicLong();
+    private final AtomicLong throttles = new AtomicLong();
+    private final AtomicLong hotPartitions = new AtomicLong();
+    private final AtomicLong deadlineSkipped = new AtomicLong();
+    private final AtomicLong coalescedItems = new AtomicLong();
+    private final AtomicLong idempotencyHits = new AtomicLong();
+    private final AtomicLong idempotencyMisses = new AtomicLong();
+    private final AtomicLong conditionalWriteSkips = new AtomicLong();
+    private final AtomicLong aggregateUpdates = new AtomicLong();
+    private final StringBuilder line = new StringBuilder(1024);
+    private volatile boolean coldStart = true;
+    // Batch values add up, SqsWorker processes several batches between two flushes
+    private final AtomicLong batchSize = new AtomicLong();
+    private final AtomicLong items = new AtomicLong();
+    private final AtomicLong parseNanos = new AtomicLong();
+    private final AtomicLong failedRecords = new AtomicLong();
+
+    public void batchSize(int messages) {
+        batchSize.addAndGet(messages);
+    }
+
+    // Items decoded from the messages, messages can hold more than one
+    public void items(int decoded) {
+        items.addAndGet(decoded);
+    }
+
+    public void parseTime(long nanos) {
+        parseNanos.addAndGet(nanos);
+    }
+
+    public void failedRecords(int records) {
+        failedRecords.addAndGet(records);
+    }
+
+    // One BatchWriteItem call
+    public void writeLatency(long nanos) {
+        long millis = nanos / 1_000_000;
+        int bucket = 0;
+        while (bucket < LATENCY_BUCKETS.length - 1 && millis >= LATENCY_BUCKETS[bucket]) {
+            bucket++;
+        }
+        latencyCounts.incrementAndGet(bucket);
+        writeNanos.addAndGet(nanos);
+        maxWriteNanos.accumulateAndGet(nanos, Math::max);
+        minWriteNanos.accumulateAndGet(nanos, Math::min);
+    }
+
+    public void retry() {
+        retries.incrementAndGet();
+    }
+
+    public void unprocessedItems(int items) {
+        unprocessedItems.addAndGet(items);
+    }
+
+    public void throttle() {
+        throttles.incrementAndGet();
+    }
+
+    public void hotPartitions(int partitions) {
+        hotPartitions.addAndGet(partitions);
+    }
+
+    // Items left unwritten because the invocation ran out of time
+    public void deadlineSkipped(int items) {
+        deadlineSkipped.addAndGet(items);
+    }
+
+    // Items superseded by a later item with the same key in the same batch
+    public void coalescedItems(int items) {
+        coalescedItems.addAndGet(items);
+    }
+
+    // Writes the idempotency cache made unnecessary (duplicate messages, unchanged items), every one saves WCUs
+    public void idempotencyHits(int writes) {
+        idempotencyHits.addAndGet(writes);
+    }
+
+    // Items the idempotency cache did not know and that were written
+    public void idempotencyMisses(int writes) {
+        idempotencyMisses.addAndGet(writes);
+    }
+
+    // Conditional puts DynamoDB rejected because the stored item was identical
+    public void conditionalWriteSkipped() {
+        conditionalWriteSkips.incrementAndGet();
+    }
+
+    // Inventory deltas applied, one per company and chunk in the transaction that wrote its items
+    public void aggregateUpdates(int updates) {
+        aggregateUpdates.addAndGet(updates);
+    }
+
+    // A restored SnapStart snapshot starts cold again
+    public void coldStart() {
+        coldStart = true;
+    }
+
+    // Writes everything recorded since the last flush as a single EMF line and starts over.
+    // Every counter is taken with getAndSet, a value recorded by a writer thread while the line is built
+    // shows up in this line or in the next one, never in neither.
+    public synchronized void flush() {
+        String emf = format(System.currentTimeMillis());
+        if (ENABLED) {
+            System.out.println(emf);
+        }
+    }
+
+    // Takes the recorded values, the counters start over at zero
+    synchronized String format(long timestamp) {
+        line.setLength(0);
+        line.append("{\"_aws\":{\"Timestamp\":").append(timestamp)
+                .append(",\"CloudWatchMetrics\":[{\"Namespace\":\"").append(NAMESPACE)
+                .append("\",\"Dimensions\":[[\"FunctionName\"]],\"Metrics\":[")
+                .append("{\"Name\":\"BatchSize\",\"Unit\":\"Count\"},")
+                .append("{\"Name\":\"Items\",\"Unit\":\"Count\"},")
+                .append("{\"Name\":\"ParseTime\",\"Unit\":\"Milliseconds\"},")
+                .append("{\"Name\":\"WriteLatency\",\"Unit\":\"Milliseconds\"},")
+                .append("{\"Name\":\"WriteCalls\",\"Unit\":\"Count\"},")
+                .append("{\"Name\":\"Retries\",\"Unit\":\"Count\"},")
+                .append("{\"Name\":\"UnprocessedItems\",\"Unit\":\"Count\"},")
+                .append("{\"Name\":\"Throttles\",\"Unit\":\"Count\"},")
+                .append("{\"Name\":\"HotPartitions\",\"Unit\":\"Count\"},")
+                .append("{\"Name\":\"DeadlineSkippedItems\",\"Unit\":\"Count\"},")
+                .append("{\"Name\":\"CoalescedItems\",\"Unit\":\"Count\"},")
+                .append("{\"Name\":\"IdempotencyHits\",\"Unit\":\"Count\"},")
+                .append("{\"Name\":\"IdempotencyMisses\",\"Unit\":\"Count\"},")
+                .append("{\"Name\":\"ConditionalWriteSkips\",\"Unit\":\"Count\"},")
+                .append("{\"Name\":\"AggregateUpdates\",\"Unit\":\"Count\"},")
+                .append("{\"Name\":\"FailedRecords\",\"Unit\":\"Count\"},")
+                .append("{\"Name\":\"ColdStart\",\"Unit\":\"Count\"}]}]},")
+                .append("\"FunctionName\":\"").append(FUNCTION_NAME).append("\",")
+                .append("\"BatchSize\":").append(batchSize.getAndSet(0)).append(',')
+                .append("\"Items\":").append(items.getAndSet(0)).append(',')
+                .append("\"ParseTime\":").append(parseNanos.getAndSet(0) / 1_000_000.0).append(',')
+                .append("\"WriteLatency\":");
+        long writeCalls = appendLatencyHistogram();
+        line.append(",\"WriteCalls\":").append(writeCalls)
+                .append(",\"Retries\":").append(retries.getAndSet(0))
+                .append(",\"UnprocessedItems\":").append(unprocessedItems.getAndSet(0))
+                .append(",\"Throttles\":").append(throttles.getAndSet(0))
+                .append(",\"HotPartitions\":").append(hotPartitions.getAndSet(0))
+                .append(",\"DeadlineSkippedItems\":").append(deadlineSkipped.getAndSet(0))
+                .append(",\"CoalescedItems\":").append(coalescedItems.getAndSet(0))
+                .append(",\"IdempotencyHits\":").append(idempotencyHits.getAndSet(0))
+                .append(",\"IdempotencyMisses\":").append(idempotencyMisses.getAndSet(0))
+                .append(",\"ConditionalWriteSkips\":").append(conditionalWriteSkips.getAndSet(0))
+                .append(",\"AggregateUpdates\":").append(aggregateUpdates.getAndSet(0))
+                .append(",\"FailedRecords\":").append(failedRecords.getAndSet(0))
+                .append(",\"ColdStart\":").append(takeColdStart() ? 1 : 0)
+                .append('}');
+        return line.toString();
+    }
+
+    // Values/Counts with the bucket bounds as values, plus the exact statistics of all calls, returns the calls
+    private long appendLatencyHistogram() {
+        long[] counts = new long[LATENCY_BUCKETS.length];
+        long calls = 0;
+        for (int i = 0; i < LATENCY_BUCKETS.length; i++) {
+            counts[i] = latencyCounts.getAndSet(i, 0);
+            calls += counts[i];
+        }
+        long nanos = writeNanos.getAndSet(0);
+        long min = minWriteNanos.getAndSet(Long.MAX_VALUE);
+        long max = maxWriteNanos.getAndSet(0);
+        if (calls == 0) {
+            line.append("{\"Values\":[],\"Counts\":[],\"Count\":0,\"Sum\":0,\"Min\":0,\"Max\":0}");
+            return 0;
+        }
+        line.append("{\"Values\":[");
+        for (int i = 0, written = 0; i < LATENCY_BUCKETS.length; i++) {
+            if (counts[i] > 0) {
+                line.append(written++ == 0 ? "" : ",").append(LATENCY_BUCKETS[i]);
+            }
+        }
+        line.append("],\"Counts\":[");
+        for (int i = 0, written = 0; i < LATENCY_BUCKETS.length; i++) {
+            if (counts[i] > 0) {
+                line.append(written++ == 0 ? "" : ",").append(counts[i]);
+            }
+        }
+        line.append("],\"Count\":").append(calls)
+                .append(",\"Sum\":").append(nanos / 1_000_000.0)
+                // A call recorded while the line is built can be in the buckets but not yet in the minimum
+                .append(",\"Min\":").append(Math.min(min, max) / 1_000_000.0)
+                .append(",\"Max\":").append(max / 1_000_000.0)
+                .append('}');
+        return calls;
+    }
+
+    private boolean takeColdStart() {
+        boolean wasCold = coldStart;
+        coldStart = false;
+        return wasCold;
+    }
+}
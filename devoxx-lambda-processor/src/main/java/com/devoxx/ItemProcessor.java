@@ -0,0 +1,295 @@
+package com.devoxx;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
+import software.amazon.awssdk.enhanced.dynamodb.Key;
+import software.amazon.awssdk.enhanced.dynamodb.model.WriteBatch;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.s3.S3Client;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+// Processing shared by the Lambda handlers: decodes message bodies, writes the items
+// and reports the messages that could not be processed
+public class ItemProcessor {
+
+    private static final Logger LOGGER = LogManager.getLogger(ItemProcessor.class);
+    private static final String TABLE_NAME = System.getenv("TABLE_NAME") != null ? System.getenv("TABLE_NAME") : "Items";
+    // SEQUENTIAL writes batches one after another, CONCURRENT writes up to MAX_CONCURRENCY batches in parallel
+    private static final String PROCESSING_MODE = EnvUtil.get("PROCESSING_MODE", "SEQUENTIAL");
+    private static final int MAX_CONCURRENCY = EnvUtil.getInt("MAX_CONCURRENCY", 4);
+    // Parallel BatchWriteItem calls while importing a claim check object
+    private static final int CLAIM_CHECK_CONCURRENCY = EnvUtil.getInt("CLAIM_CHECK_CONCURRENCY", 4);
+    // Put items only when their stored content hash differs, dedups across containers at one PutItem per item
+    private static final boolean CONDITIONAL_WRITES = Boolean.parseBoolean(EnvUtil.get("IDEMPOTENCY_CONDITIONAL_WRITES", "false"));
+    // Maintain per company stock totals (InventoryAggregates), items are then written in transactions with the totals
+    private static final boolean INVENTORY_AGGREGATES = Boolean.parseBoolean(EnvUtil.get("INVENTORY_AGGREGATES", "false"));
+    // Key that is never written, WriteSharding reserves the companyId. Priming deletes it to walk the whole
+    // write path without touching real data
+    static final String PRIMING_COMPANY_ID = "devoxx-priming";
+    static final String PRIMING_BODY = "{\"uuid\":\"devoxx-priming\",\"companyId\":\"" + PRIMING_COMPANY_ID
+            + "\",\"name\":\"Priming\",\"price\":1.0,\"quantity\":1}";
+    private final Executor executor = createExecutor();
+    private final ItemMetrics metrics = new ItemMetrics();
+    private final WriteRateLimiter rateLimiter = new WriteRateLimiter();
+    private final HotPartitionDetector hotPartitions = new HotPartitionDetector(metrics);
+    private final WriteSharding sharding = new WriteSharding();
+    private final IdempotencyCache idempotencyCache = new IdempotencyCache();
+    // Clients created by the handler itself are rebuilt after a SnapStart restore, injected ones are left alone
+    private final boolean ownsClient;
+    private DynamoDbClient dynamoDbClient;
+    private DynamoDbEnhancedClient enhancedClient;
+
+    private DynamoDbTable<Item> itemTable;
+    private InventoryAggregates inventoryAggregates;
+    private ItemWriter itemWriter;
+    // Created on the first claim check, most deployments never need S3
+    private ClaimCheckProcessor claimCheckProcessor;
+    private Executor claimCheckExecutor;
+    private S3Client s3Client;
+
+    public ItemProcessor(DynamoDbClient dynamoDbClient, boolean ownsClient) {
+        this.ownsClient = ownsClient;
+        initClients(dynamoDbClient);
+    }
+
+    // Returns the ids of the messages that have to be retried
+    public List<String> process(List<ItemMessage> messages) {
+        return process(messages, Deadline.NONE);
+    }
+
+    // Messages whose items are not written before the deadline are retried, the others are not redelivered
+    public List<String> process(List<ItemMessage> messages, Deadline deadline) {
+        try {
+            return processBatch(messages, deadline);
+        } finally {
+            metrics.flush();
+        }
+    }
+
+    // Like process, but leaves the metrics to flushMetrics, for callers running several batches at once
+    public List<String> processBatch(List<ItemMessage> messages, Deadline deadline) {
+        metrics.batchSize(messages.size());
+        long parseStart = System.nanoTime();
+        // A message with several items fails as a whole, even if only one of its items could not be saved
+        Set<String> failures = new LinkedHashSet<>();
+        // Remember which message every parsed item came from, so failed writes can be reported back to SQS
+        Map<Item, ItemMessage> sources = new IdentityHashMap<>();
+        List<Item> items = new ArrayList<>(messages.size());
+        List<ItemMessage> claimChecks = new ArrayList<>();
+        int duplicates = 0;
+        for (ItemMessage message : messages) {
+            // Redelivered after it was processed, e.g. when the invocation timed out afterwards
+            if (idempotencyCache.processedMessage(message.messageId())) {
+                LOGGER.debug("Skipping already processed message {}", message.messageId());
+                duplicates++;
+                continue;
+            }
+            if (ClaimCheckProcessor.isClaimCheck(message)) {
+                claimChecks.add(message);
+                continue;
+            }
+            try {
+                // A body that is only partly valid contributes no items at all
+                for (Item item : ItemBodyDecoder.decode(message)) {
+                    sources.put(item, message);
+                    items.add(item);
+                }
+            } catch (Exception e) {
+                LOGGER.error("Error processing message {}", message.messageId(), e);
+                failures.add(message.messageId());
+            }
+        }
+        metrics.parseTime(System.nanoTime() - parseStart);
+        metrics.items(items.size());
+
+        // Only the latest item per key is written, keys are unique from here on
+        List<Item> latest = ItemCoalescer.coalesce(items, item -> sources.get(item).sentTimestamp());
+        metrics.coalescedItems(items.size() - latest.size());
+
+        // Items written with exactly this content before are not written again
+        List<Item> changed = latest;
+        Map<Item, String> contentHashes = new IdentityHashMap<>();
+        if (idempotencyCache.enabled()) {
+            changed = new ArrayList<>(latest.size());
+            for (Item item : latest) {
+                String contentHash = IdempotencyCache.contentHash(item);
+                if (idempotencyCache.unchanged(item, contentHash)) {
+                    LOGGER.debug("Skipping unchanged item: {}", item);
+                } else {
+                    contentHashes.put(item, contentHash);
+                    changed.add(item);
+                }
+            }
+        }
+        metrics.idempotencyHits(duplicates + latest.size() - changed.size());
+        metrics.idempotencyMisses(changed.size());
+
+        ItemWriter.Result result = itemWriter.writeItems(changed, deadline);
+        long saved = result.written();
+        Set<Item> failed = Collections.newSetFromMap(new IdentityHashMap<>());
+        failed.addAll(result.failed());
+        for (Item item : changed) {
+            if (failed.contains(item)) {
+                LOGGER.error("Failed to save item: {}", item);
+                failures.add(sources.get(item).messageId());
+            } else {
+                LOGGER.debug("Saved item: {}", item);
+                if (contentHashes.containsKey(item)) {
+                    idempotencyCache.written(item, contentHashes.get(item));
+                }
+            }
+        }
+        for (ItemMessage message : claimChecks) {
+            try {
+                ClaimCheckProcessor.Import imported = claimCheckProcessor().process(message, deadline);
+                metrics.items(Math.toIntExact(imported.items()));
+                saved += imported.written();
+            } catch (Exception e) {
+                LOGGER.error("Error importing claim check {}", message.messageId(), e);
+                failures.add(message.messageId());
+            }
+        }
+        for (ItemMessage message : messages) {
+            if (!failures.contains(message.messageId())) {
+                idempotencyCache.messageProcessed(message.messageId());
+            }
+        }
+        // One line per batch, per item lines only at DEBUG. Saved are the items the writers stored, coalesced,
+        // unchanged and failed items are not, imported claim check items are
+        LOGGER.info("Processed {} messages, saved {} items, {} failed", messages.size(), saved, failures.size());
+        metrics.failedRecords(failures.size());
+        hotPartitions.endBatch();
+        return new ArrayList<>(failures);
+    }
+
+    // One EMF line with everything recorded since the last flush
+    public void flushMetrics() {
+        metrics.flush();
+    }
+
+    // Runs the hot path once before the snapshot is taken, so classes are loaded and initialized
+    // and the restored JVM does not pay for it on the first invocation
+    public void prime() throws Exception {
+        // The decoder rejects the priming companyId like any reserved one, the item is read without the check
+        ItemBodyDecoder.decode("[]");
+        Item item = ItemJson.READER.readValue(PRIMING_BODY);
+        ItemJson.WRITER.writeValueAsString(item);
+        itemTable.tableSchema().mapToItem(itemTable.tableSchema().itemToMap(item, true));
+        BatchItemWriter.chunk(List.of(item));
+
+        // Deleting an item that does not exist exercises credentials, signing, the HTTP client
+        // and BatchWriteItem (un)marshalling without changing the table
+        try {
+            Key key = Key.builder().partitionValue(PRIMING_COMPANY_ID).sortValue(item.getUuid()).build();
+            enhancedClient.batchWriteItem(r -> r.addWriteBatch(WriteBatch.builder(Item.class)
+                    .mappedTableResource(itemTable)
+                    .addDeleteItem(key)
+                    .build()));
+        } catch (Exception e) {
+            LOGGER.warn("Priming call to DynamoDB failed", e);
+        }
+        LOGGER.info("Primed handler before checkpoint");
+    }
+
+    public void afterRestore() {
+        // Pooled connections and cached credentials from the snapshot are stale, start with a fresh client
+        if (ownsClient) {
+            DynamoDbClient staleClient = dynamoDbClient;
+            initClients(AwsSdkClientUtil.createDynamoDbClient());
+            staleClient.close();
+            if (s3Client != null) {
+                s3Client.close();
+                s3Client = null;
+            }
+        }
+        // Nothing processed before the snapshot belongs to this container
+        idempotencyCache.clear();
+        // Every restored copy would otherwise share the same backoff jitter sequence
+        BatchItemWriter.reseedJitter();
+        metrics.coldStart();
+        LOGGER.info("Restored from snapshot");
+    }
+
+    private void initClients(DynamoDbClient dynamoDbClient) {
+        this.dynamoDbClient = dynamoDbClient;
+        this.enhancedClient = DynamoDbEnhancedClient.builder()
+                .dynamoDbClient(dynamoDbClient)
+                .build();
+        this.itemTable = enhancedClient.table(TABLE_NAME, ItemTableSchema.INSTANCE);
+        this.inventoryAggregates = new InventoryAggregates(dynamoDbClient, TABLE_NAME);
+        if (INVENTORY_AGGREGATES) {
+            this.itemWriter = aggregatingWriter(executor, CONDITIONAL_WRITES);
+        } else if (CONDITIONAL_WRITES) {
+            this.itemWriter = new ConditionalItemWriter(dynamoDbClient, TABLE_NAME, itemTable.tableSchema(), executor,
+                    metrics, rateLimiter, sharding);
+        } else {
+            this.itemWriter = new BatchItemWriter(enhancedClient, itemTable, executor, metrics, rateLimiter, hotPartitions,
+                    sharding, concurrent() ? MAX_CONCURRENCY : 1);
+        }
+        this.claimCheckProcessor = null;
+    }
+
+    private AggregatingItemWriter aggregatingWriter(Executor writerExecutor, boolean conditional) {
+        return new AggregatingItemWriter(dynamoDbClient, TABLE_NAME, itemTable.tableSchema(), writerExecutor, metrics,
+                rateLimiter, sharding, inventoryAggregates, conditional);
+    }
+
+    // Stock totals of a company, a single GetItem
+    public InventoryAggregate inventoryAggregate(String companyId) {
+        return inventoryAggregates.get(companyId);
+    }
+
+    // Concurrent process calls from SqsWorker must not create two processors
+    private synchronized ClaimCheckProcessor claimCheckProcessor() {
+        if (claimCheckProcessor == null) {
+            if (s3Client == null) {
+                s3Client = AwsSdkClientUtil.createS3Client();
+            }
+            // Imported items count towards the totals as well
+            ItemWriter claimCheckWriter = INVENTORY_AGGREGATES
+                    ? aggregatingWriter(claimCheckExecutor(), false)
+                    : new BatchItemWriter(enhancedClient, itemTable, claimCheckExecutor(), metrics, rateLimiter,
+                    hotPartitions, sharding, CLAIM_CHECK_CONCURRENCY);
+            claimCheckProcessor = new ClaimCheckProcessor(s3Client, dynamoDbClient, TABLE_NAME, claimCheckWriter);
+        }
+        return claimCheckProcessor;
+    }
+
+    private Executor claimCheckExecutor() {
+        if (claimCheckExecutor == null) {
+            claimCheckExecutor = Executors.newFixedThreadPool(CLAIM_CHECK_CONCURRENCY, runnable -> {
+                Thread thread = new Thread(runnable, "claim-check-writer");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return claimCheckExecutor;
+    }
+
+    private static boolean concurrent() {
+        return "CONCURRENT".equalsIgnoreCase(PROCESSING_MODE);
+    }
+
+    private static Executor createExecutor() {
+        if (!concurrent()) {
+            return Runnable::run;
+        }
+        LOGGER.info("Writing batches concurrently with at most {} threads", MAX_CONCURRENCY);
+        return Executors.newFixedThreadPool(MAX_CONCURRENCY, runnable -> {
+            Thread thread = new Thread(runnable, "item-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+}
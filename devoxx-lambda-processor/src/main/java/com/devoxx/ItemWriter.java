@@ -0,0 +1,19 @@
+package com.devoxx;
+
+import java.util.List;
+
+// Write strategy of the processor: BatchItemWriter, ConditionalItemWriter or AggregatingItemWriter
+public interface ItemWriter {
+
+    // Returns the items that could not be written, items left over when the deadline passes included
+    default List<Item> write(List<Item> items, Deadline deadline) {
+        return writeItems(items, deadline).failed();
+    }
+
+    // Like write, and counts the items DynamoDB actually stored. An item left out because the stored one
+    // has the same content is neither failed nor written.
+    Result writeItems(List<Item> items, Deadline deadline);
+
+    record Result(List<Item> failed, int written) {
+    }
+}
@@ -0,0 +1,226 @@
+package com.devoxx;
+
+import com.amazonaws.services.lambda.runtime.ClientContext;
+import com.amazonaws.services.lambda.runtime.CognitoIdentity;
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.LambdaLogger;
+import com.amazonaws.services.lambda.runtime.RequestStreamHandler;
+import com.amazonaws.services.lambda.runtime.events.SQSEvent;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Bootstrap loop of the provided.al2023 custom runtime, the main class of the native executable (mvn package -Pnative):
+// takes the next event from the Lambda Runtime API, invokes the handler configured as _HANDLER and posts its response
+// or error. The handlers are created directly instead of by reflection, only the event types need native-image
+// configuration (META-INF/native-image/com.devoxx/devoxxlambda).
+public final class LambdaRuntime {
+
+    private static final Logger LOGGER = LogManager.getLogger(LambdaRuntime.class);
+    private static final String API_VERSION = "/2018-06-01/runtime";
+    // The Java runtime maps the event JSON case insensitively ("Records", "eventSourceARN")
+    private static final ObjectReader EVENT_READER = JsonMapper.builder()
+            .enable(MapperFeature.ACCEPT_CASE_INSENSITIVE_PROPERTIES)
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .build()
+            .readerFor(SQSEvent.class);
+
+    private final String runtimeApi;
+    private final Invoker invoker;
+
+    LambdaRuntime(String runtimeApi, Invoker invoker) {
+        this.runtimeApi = runtimeApi;
+        this.invoker = invoker;
+    }
+
+    public static void main(String[] args) {
+        String runtimeApi = "http://" + System.getenv("AWS_LAMBDA_RUNTIME_API") + API_VERSION;
+        Invoker invoker;
+        try {
+            invoker = invoker(EnvUtil.get("_HANDLER", DevoxxLambda.class.getName() + "::handleRequest"));
+        } catch (RuntimeException e) {
+            LOGGER.error("Handler initialization failed", e);
+            try {
+                post(runtimeApi + "/init/error", error(e), true);
+            } catch (IOException postError) {
+                LOGGER.error("Could not report the initialization error", postError);
+            }
+            System.exit(1);
+            return;
+        }
+        LambdaRuntime runtime = new LambdaRuntime(runtimeApi, invoker);
+        try {
+            while (true) {
+                runtime.invokeNext();
+            }
+        } catch (IOException e) {
+            // The Runtime API went away, Lambda starts a new environment
+            LOGGER.error("Runtime API call failed", e);
+            System.exit(1);
+        }
+    }
+
+    static Invoker invoker(String handler) {
+        String handlerClass = handler.split("::")[0];
+        if (handlerClass.equals(DevoxxStreamLambda.class.getName())) {
+            return invoker(new DevoxxStreamLambda());
+        }
+        if (handlerClass.equals(DevoxxReadLambda.class.getName())) {
+            return invoker(new DevoxxReadLambda());
+        }
+        if (handlerClass.equals(DevoxxLambda.class.getName())) {
+            return invoker(new DevoxxLambda());
+        }
+        throw new IllegalArgumentException("Unknown handler: " + handler);
+    }
+
+    static Invoker invoker(RequestStreamHandler handler) {
+        return (event, context) -> {
+            ByteArrayOutputStream response = new ByteArrayOutputStream();
+            handler.handleRequest(new ByteArrayInputStream(event), response, context);
+            return response.toByteArray();
+        };
+    }
+
+    static Invoker invoker(DevoxxLambda handler) {
+        return (event, context) -> ItemJson.MAPPER.writeValueAsBytes(handler.handleRequest(EVENT_READER.readValue(event), context));
+    }
+
+    // Blocks until the Runtime API hands out the next event
+    void invokeNext() throws IOException {
+        HttpURLConnection next = (HttpURLConnection) new URL(runtimeApi + "/invocation/next").openConnection();
+        // Waiting for an event is not bounded, the environment is frozen in between
+        next.setReadTimeout(0);
+        byte[] event;
+        try (InputStream input = next.getInputStream()) {
+            event = input.readAllBytes();
+        }
+        String requestId = next.getHeaderField("Lambda-Runtime-Aws-Request-Id");
+        InvocationContext context = new InvocationContext(requestId,
+                next.getHeaderField("Lambda-Runtime-Invoked-Function-Arn"),
+                Long.parseLong(next.getHeaderField("Lambda-Runtime-Deadline-Ms")));
+
+        byte[] response;
+        try {
+            response = invoker.invoke(event, context);
+        } catch (Exception e) {
+            LOGGER.error("Invocation {} failed", requestId, e);
+            post(runtimeApi + "/invocation/" + requestId + "/error", error(e), true);
+            return;
+        }
+        post(runtimeApi + "/invocation/" + requestId + "/response", response, false);
+    }
+
+    private static void post(String url, byte[] body, boolean error) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        connection.setRequestMethod("POST");
+        connection.setDoOutput(true);
+        connection.setFixedLengthStreamingMode(body.length);
+        if (error) {
+            connection.setRequestProperty("Lambda-Runtime-Function-Error-Type", "Unhandled");
+        }
+        try (OutputStream output = connection.getOutputStream()) {
+            output.write(body);
+        }
+        if (connection.getResponseCode() >= 300) {
+            throw new IOException("Runtime API returned " + connection.getResponseCode() + " for " + url);
+        }
+        connection.getInputStream().close();
+    }
+
+    private static byte[] error(Exception e) throws IOException {
+        Map<String, String> error = new LinkedHashMap<>();
+        error.put("errorMessage", String.valueOf(e.getMessage()));
+        error.put("errorType", e.getClass().getName());
+        return ItemJson.MAPPER.writeValueAsBytes(error);
+    }
+
+    interface Invoker {
+        byte[] invoke(byte[] event, Context context) throws Exception;
+    }
+
+    private record InvocationContext(String awsRequestId, String invokedFunctionArn, long deadlineMillis)
+            implements Context {
+
+        private static final LambdaLogger LOGGER = new LambdaLogger() {
+            @Override
+            public void log(String message) {
+                System.out.print(message);
+            }
+
+            @Override
+            public void log(byte[] message) {
+                System.out.print(new String(message, StandardCharsets.UTF_8));
+            }
+        };
+
+        @Override
+        public String getAwsRequestId() {
+            return awsRequestId;
+        }
+
+        @Override
+        public String getLogGroupName() {
+            return System.getenv("AWS_LAMBDA_LOG_GROUP_NAME");
+        }
+
+        @Override
+        public String getLogStreamName() {
+            return System.getenv("AWS_LAMBDA_LOG_STREAM_NAME");
+        }
+
+        @Override
+        public String getFunctionName() {
+            return System.getenv("AWS_LAMBDA_FUNCTION_NAME");
+        }
+
+        @Override
+        public String getFunctionVersion() {
+            return System.getenv("AWS_LAMBDA_FUNCTION_VERSION");
+        }
+
+        @Override
+        public String getInvokedFunctionArn() {
+            return invokedFunctionArn;
+        }
+
+        @Override
+        public CognitoIdentity getIdentity() {
+            return null;
+        }
+
+        @Override
+        public ClientContext getClientContext() {
+            return null;
+        }
+
+        @Override
+        public int getRemainingTimeInMillis() {
+            return (int) (deadlineMillis - System.currentTimeMillis());
+        }
+
+        @Override
+        public int getMemoryLimitInMB() {
+            return EnvUtil.getInt("AWS_LAMBDA_FUNCTION_MEMORY_SIZE", 0);
+        }
+
+        @Override
+        public LambdaLogger getLogger() {
+            return LOGGER;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.devoxx;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+// Reads of the warm container, kept for a short time so repeated lookups do not go to DynamoDB again.
+// Size-capped LRU like IdempotencyCache, and entries expire: writes of the SQS handlers are not seen here,
+// the TTL bounds how stale an answer can be. A Lambda container serves one request at a time, so misses are not
+// coalesced: two concurrent misses of the same key both load it and the later one is cached.
+public class ReadCache<K, V> {
+
+    private final int capacity;
+    private final long ttlNanos;
+    private final LongSupplier nanoTime;
+    private final ReadMetrics metrics;
+    private final Map<K, Entry<V>> entries;
+
+    public ReadCache(int capacity, int ttlSeconds, LongSupplier nanoTime, ReadMetrics metrics) {
+        this.capacity = capacity;
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+        this.nanoTime = nanoTime;
+        this.metrics = metrics;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                return size() > ReadCache.this.capacity;
+            }
+        };
+    }
+
+    // Values can be null, a key that does not exist is cached like any other answer
+    public V get(K key, Function<K, V> loader) {
+        synchronized (this) {
+            Entry<V> entry = entries.get(key);
+            if (entry != null && nanoTime.getAsLong() - entry.expiry() <= 0) {
+                metrics.hit();
+                return entry.value();
+            }
+        }
+        metrics.miss();
+        // Loaded outside the lock, a failed load throws and caches nothing
+        V value = loader.apply(key);
+        synchronized (this) {
+            entries.put(key, new Entry<>(value, nanoTime.getAsLong() + ttlNanos));
+        }
+        return value;
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    private record Entry<V>(V value, long expiry) {
+    }
+}
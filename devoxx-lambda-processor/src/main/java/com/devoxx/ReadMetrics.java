@@ -0,0 +1,55 @@
+package com.devoxx;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// Cache effectiveness of DevoxxReadLambda, one EMF line per invocation like ItemMetrics on the write side
+public class ReadMetrics {
+
+    private static final boolean ENABLED = Boolean.parseBoolean(EnvUtil.get("METRICS_ENABLED", "true"));
+    private static final String NAMESPACE = EnvUtil.get("METRICS_NAMESPACE", "DevoxxLambda");
+    private static final String FUNCTION_NAME = EnvUtil.get("AWS_LAMBDA_FUNCTION_NAME", "local");
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public void hit() {
+        hits.incrementAndGet();
+    }
+
+    // Answered by DynamoDB
+    public void miss() {
+        misses.incrementAndGet();
+    }
+
+    // Percentage of reads since the last flush answered from the cache, 0 without reads
+    public double hitRatio() {
+        return hitRatio(hits.get(), misses.get());
+    }
+
+    public void flush() {
+        // Each counter is taken once, the line and its ratio describe the same reads
+        String line = format(System.currentTimeMillis(), hits.getAndSet(0), misses.getAndSet(0));
+        if (ENABLED) {
+            System.out.println(line);
+        }
+    }
+
+    static String format(long timestamp, long hits, long misses) {
+        return "{\"_aws\":{\"Timestamp\":" + timestamp
+                + ",\"CloudWatchMetrics\":[{\"Namespace\":\"" + NAMESPACE
+                + "\",\"Dimensions\":[[\"FunctionName\"]],\"Metrics\":["
+                + "{\"Name\":\"CacheHits\",\"Unit\":\"Count\"},"
+                + "{\"Name\":\"CacheMisses\",\"Unit\":\"Count\"},"
+                + "{\"Name\":\"CacheHitRatio\",\"Unit\":\"Percent\"}]}]},"
+                + "\"FunctionName\":\"" + FUNCTION_NAME + "\","
+                + "\"CacheHits\":" + hits
+                + ",\"CacheMisses\":" + misses
+                + ",\"CacheHitRatio\":" + hitRatio(hits, misses)
+                + '}';
+    }
+
+    private static double hitRatio(long hits, long misses) {
+        long total = hits + misses;
+        return total == 0 ? 0 : 100.0 * hits / total;
+    }
+}
@@ -0,0 +1,135 @@
+package com.devoxx;
+
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
+import software.amazon.awssdk.enhanced.dynamodb.Key;
+import software.amazon.awssdk.enhanced.dynamodb.model.Page;
+import software.amazon.awssdk.enhanced.dynamodb.model.QueryConditional;
+import software.amazon.awssdk.enhanced.dynamodb.model.QueryEnhancedRequest;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+// Scatter-gather reads over the partitions WriteSharding spreads a company on: one Query per partition,
+// all in parallel, merged back into uuid order as a single unsharded Query would return them
+public class ShardedItemReader {
+
+    private final DynamoDbTable<Item> itemTable;
+    private final WriteSharding sharding;
+    private final Executor executor;
+
+    public ShardedItemReader(DynamoDbTable<Item> itemTable, WriteSharding sharding, Executor executor) {
+        this.itemTable = itemTable;
+        this.sharding = sharding;
+        this.executor = executor;
+    }
+
+    public List<Item> queryCompany(String companyId) {
+        WriteSharding.checkCompanyId(companyId);
+        List<CompletableFuture<List<Item>>> queries = new ArrayList<>();
+        for (String partitionKey : sharding.partitionKeys(companyId)) {
+            queries.add(CompletableFuture.supplyAsync(() -> queryPartition(partitionKey), executor));
+        }
+        // A uuid written before and after sharding was enabled exists twice, the sharded copy is the newer one
+        Map<String, Item> items = new TreeMap<>();
+        for (CompletableFuture<List<Item>> query : queries) {
+            query.join().forEach(item -> items.put(item.getUuid(), sharding.fromStored(item, companyId)));
+        }
+        return new ArrayList<>(items.values());
+    }
+
+    public Item getItem(String companyId, String uuid) {
+        WriteSharding.checkCompanyId(companyId);
+        Item item = itemTable.getItem(Key.builder()
+                .partitionValue(sharding.partitionKey(companyId, uuid))
+                .sortValue(uuid)
+                .build());
+        // Written before sharding was enabled
+        if (item == null && sharding.enabled()) {
+            item = itemTable.getItem(Key.builder().partitionValue(companyId).sortValue(uuid).build());
+        }
+        return item != null ? sharding.fromStored(item, companyId) : null;
+    }
+
+    // One Query of at most limit items, only the attributes asked for (all when empty) plus the key.
+    // Sharded partitions are paged one after the other, so the uuid order only holds within a partition and a page
+    // can be short or empty where a partition ends. Items written before and after sharding was enabled are listed
+    // twice, unlike queryCompany there is no page wide view to merge them.
+    public ItemPage queryPage(String companyId, int limit, List<String> attributes, String pageToken) {
+        WriteSharding.checkCompanyId(companyId);
+        List<String> partitionKeys = sharding.partitionKeys(companyId);
+        int partition = 0;
+        String startUuid = null;
+        if (pageToken != null) {
+            String[] token = decodeToken(pageToken);
+            partition = Integer.parseInt(token[0]);
+            startUuid = token[1].isEmpty() ? null : token[1];
+            if (partition >= partitionKeys.size()) {
+                throw new IllegalArgumentException("Invalid page token: " + pageToken);
+            }
+        }
+        String partitionKey = partitionKeys.get(partition);
+        QueryEnhancedRequest.Builder request = QueryEnhancedRequest.builder()
+                .queryConditional(QueryConditional.keyEqualTo(k -> k.partitionValue(partitionKey)))
+                .limit(limit);
+        if (!attributes.isEmpty()) {
+            LinkedHashSet<String> projection = new LinkedHashSet<>(List.of("companyId", "uuid"));
+            projection.addAll(attributes);
+            request.attributesToProject(new ArrayList<>(projection));
+        }
+        if (startUuid != null) {
+            request.exclusiveStartKey(Map.of(
+                    "companyId", AttributeValue.fromS(partitionKey),
+                    "uuid", AttributeValue.fromS(startUuid)));
+        }
+        Page<Item> page = itemTable.query(request.build()).iterator().next();
+        List<Item> items = new ArrayList<>(page.items().size());
+        page.items().forEach(item -> items.add(sharding.fromStored(item, companyId)));
+
+        String nextToken = null;
+        if (page.lastEvaluatedKey() != null && !page.lastEvaluatedKey().isEmpty()) {
+            nextToken = encodeToken(partition, page.lastEvaluatedKey().get("uuid").s());
+        } else if (partition + 1 < partitionKeys.size()) {
+            nextToken = encodeToken(partition + 1, "");
+        }
+        return new ItemPage(items, nextToken);
+    }
+
+    // "<partition index>:<last uuid>", base64 so callers treat it as opaque
+    private static String encodeToken(int partition, String uuid) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((partition + ":" + uuid).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String[] decodeToken(String pageToken) {
+        try {
+            String token = new String(Base64.getUrlDecoder().decode(pageToken), StandardCharsets.UTF_8);
+            String[] parts = token.split(":", 2);
+            if (parts.length == 2 && !parts[0].isEmpty() && parts[0].chars().allMatch(Character::isDigit)) {
+                return parts;
+            }
+        } catch (IllegalArgumentException e) {
+            // Not base64, reported below
+        }
+        throw new IllegalArgumentException("Invalid page token: " + pageToken);
+    }
+
+    // nextToken is null on the last page
+    public record ItemPage(List<Item> items, String nextToken) {
+    }
+
+    private List<Item> queryPartition(String partitionKey) {
+        List<Item> items = new ArrayList<>();
+        itemTable.query(QueryConditional.keyEqualTo(k -> k.partitionValue(partitionKey)))
+                .items()
+                .forEach(items::add);
+        return items;
+    }
+}
@@ -0,0 +1,321 @@
+package com.devoxx;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import software.amazon.awssdk.services.sqs.SqsClient;
+import software.amazon.awssdk.services.sqs.model.ChangeMessageVisibilityBatchRequest;
+import software.amazon.awssdk.services.sqs.model.ChangeMessageVisibilityBatchRequestEntry;
+import software.amazon.awssdk.services.sqs.model.DeleteMessageBatchRequest;
+import software.amazon.awssdk.services.sqs.model.DeleteMessageBatchRequestEntry;
+import software.amazon.awssdk.services.sqs.model.DeleteMessageBatchResponse;
+import software.amazon.awssdk.services.sqs.model.Message;
+import software.amazon.awssdk.services.sqs.model.MessageAttributeValue;
+import software.amazon.awssdk.services.sqs.model.ReceiveMessageRequest;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Polls the queue itself instead of the Lambda event source, for a long-running container (ECS, EC2, local).
+// Pollers long-poll ReceiveMessage and hand every batch to a bounded pool running the same ItemProcessor as the
+// Lambda handlers. Processed messages are deleted, failed ones are left to reappear after their visibility
+// timeout, like the partial batch response does for the handlers. Batches still processing when half of the
+// visibility timeout is over get it extended, so a slow batch is not handed out a second time.
+public class SqsWorker implements AutoCloseable {
+
+    private static final Logger LOGGER = LogManager.getLogger(SqsWorker.class);
+    // ReceiveMessage limits, the longest wait and the largest batch SQS hands out
+    static final int WAIT_TIME_SECONDS = 20;
+    static final int MAX_MESSAGES = 10;
+    private static final int POLLERS = EnvUtil.getInt("WORKER_POLLERS", 2);
+    private static final int THREADS = EnvUtil.getInt("WORKER_THREADS", 4);
+    private static final int VISIBILITY_TIMEOUT_SECONDS = EnvUtil.getInt("WORKER_VISIBILITY_TIMEOUT_SECONDS", 30);
+    private static final int SHUTDOWN_TIMEOUT_SECONDS = EnvUtil.getInt("WORKER_SHUTDOWN_TIMEOUT_SECONDS", 30);
+    private static final int STATS_INTERVAL_SECONDS = EnvUtil.getInt("WORKER_STATS_INTERVAL_SECONDS", 60);
+    // Batches run concurrently, one EMF line per interval instead of one per batch keeps them from mixing
+    private static final int METRICS_INTERVAL_SECONDS = EnvUtil.getInt("WORKER_METRICS_INTERVAL_SECONDS", 60);
+
+    private final SqsClient sqsClient;
+    private final String queueUrl;
+    private final ItemProcessor itemProcessor;
+    private final int pollers;
+    private final int visibilityTimeoutSeconds;
+    private final ExecutorService pollerExecutor;
+    private final ExecutorService processingExecutor;
+    private final ScheduledExecutorService scheduler;
+    // One permit per processing thread, a poller only receives when a thread is free to take the batch,
+    // so received messages do not wait in a queue while their visibility timeout runs
+    private final Semaphore capacity;
+    private final Set<List<Message>> inFlight = ConcurrentHashMap.newKeySet();
+    private final AtomicLong processedMessages = new AtomicLong();
+    private final AtomicLong failedMessages = new AtomicLong();
+    private long startNanos;
+    private long lastStatsNanos;
+    private long lastStatsMessages;
+    private volatile boolean running;
+
+    public SqsWorker(SqsClient sqsClient, String queueUrl, ItemProcessor itemProcessor) {
+        this(sqsClient, queueUrl, itemProcessor, POLLERS, THREADS, VISIBILITY_TIMEOUT_SECONDS);
+    }
+
+    public SqsWorker(SqsClient sqsClient, String queueUrl, ItemProcessor itemProcessor, int pollers, int threads,
+                     int visibilityTimeoutSeconds) {
+        this.sqsClient = sqsClient;
+        this.queueUrl = queueUrl;
+        this.itemProcessor = itemProcessor;
+        this.pollers = pollers;
+        this.visibilityTimeoutSeconds = visibilityTimeoutSeconds;
+        this.pollerExecutor = Executors.newFixedThreadPool(pollers, threadFactory("sqs-poller", false));
+        this.processingExecutor = Executors.newFixedThreadPool(threads, threadFactory("sqs-processor", false));
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(threadFactory("sqs-worker-scheduler", true));
+        this.capacity = new Semaphore(threads);
+    }
+
+    // QUEUE_URL selects the queue, ENDPOINT points all clients at LocalStack
+    public static void main(String[] args) {
+        String queueUrl = EnvUtil.get("QUEUE_URL", null);
+        if (queueUrl == null) {
+            throw new IllegalStateException("QUEUE_URL is not set");
+        }
+        SqsWorker worker = new SqsWorker(AwsSdkClientUtil.createSqsClient(), queueUrl,
+                new ItemProcessor(AwsSdkClientUtil.createDynamoDbClient(), true));
+        Runtime.getRuntime().addShutdownHook(new Thread(worker::close, "sqs-worker-shutdown"));
+        worker.start();
+    }
+
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        startNanos = System.nanoTime();
+        lastStatsNanos = startNanos;
+        long extendEverySeconds = Math.max(1, visibilityTimeoutSeconds / 2);
+        scheduler.scheduleAtFixedRate(this::extendVisibility, extendEverySeconds, extendEverySeconds, TimeUnit.SECONDS);
+        scheduler.scheduleAtFixedRate(this::logStats, STATS_INTERVAL_SECONDS, STATS_INTERVAL_SECONDS, TimeUnit.SECONDS);
+        scheduler.scheduleAtFixedRate(itemProcessor::flushMetrics, METRICS_INTERVAL_SECONDS, METRICS_INTERVAL_SECONDS,
+                TimeUnit.SECONDS);
+        for (int i = 0; i < pollers; i++) {
+            pollerExecutor.execute(this::poll);
+        }
+        LOGGER.info("Polling {} with {} pollers", queueUrl, pollers);
+    }
+
+    // Stops receiving, lets the batches in flight finish and deletes them, then returns.
+    // Batches that do not finish in time are redelivered after their visibility timeout.
+    @Override
+    public synchronized void close() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        LOGGER.info("Stopping, {} batches in flight", inFlight.size());
+        // Wakes up pollers waiting for a free thread, a poller inside a long poll returns within WAIT_TIME_SECONDS
+        pollerExecutor.shutdownNow();
+        processingExecutor.shutdown();
+        try {
+            if (!processingExecutor.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                LOGGER.warn("{} batches did not finish before the shutdown timeout", inFlight.size());
+                processingExecutor.shutdownNow();
+            }
+            pollerExecutor.awaitTermination(WAIT_TIME_SECONDS + 5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        scheduler.shutdownNow();
+        itemProcessor.flushMetrics();
+        logStats();
+        LOGGER.info("Stopped after {} processed and {} failed messages", processedMessages.get(), failedMessages.get());
+    }
+
+    public long processedMessages() {
+        return processedMessages.get();
+    }
+
+    public long failedMessages() {
+        return failedMessages.get();
+    }
+
+    private void poll() {
+        while (running) {
+            try {
+                capacity.acquire();
+            } catch (InterruptedException e) {
+                return;
+            }
+            boolean handedOff = false;
+            try {
+                List<Message> messages = receive();
+                if (!messages.isEmpty()) {
+                    handedOff = handOff(messages);
+                }
+            } catch (Exception e) {
+                if (running) {
+                    LOGGER.error("Error receiving messages from {}", queueUrl, e);
+                    pause();
+                }
+            } finally {
+                if (!handedOff) {
+                    capacity.release();
+                }
+            }
+        }
+    }
+
+    private List<Message> receive() {
+        return sqsClient.receiveMessage(ReceiveMessageRequest.builder()
+                .queueUrl(queueUrl)
+                .maxNumberOfMessages(MAX_MESSAGES)
+                .waitTimeSeconds(WAIT_TIME_SECONDS)
+                .visibilityTimeout(visibilityTimeoutSeconds)
+                .messageAttributeNames(ItemMessage.CONTENT_TYPE_ATTRIBUTE, ItemMessage.PAYLOAD_ATTRIBUTE)
+                .attributeNamesWithStrings(ItemMessage.SENT_TIMESTAMP_ATTRIBUTE)
+                .build()).messages();
+    }
+
+    // The permit is released by the processing thread once the batch is done
+    private boolean handOff(List<Message> messages) {
+        if (running) {
+            try {
+                processingExecutor.execute(() -> {
+                    try {
+                        process(messages);
+                    } finally {
+                        capacity.release();
+                    }
+                });
+                return true;
+            } catch (RejectedExecutionException e) {
+                // Shutting down
+            }
+        }
+        // Received after close, hand the messages back right away instead of waiting for the visibility timeout
+        changeVisibility(messages, 0);
+        return false;
+    }
+
+    void process(List<Message> messages) {
+        inFlight.add(messages);
+        try {
+            List<ItemMessage> itemMessages = new ArrayList<>(messages.size());
+            messages.forEach(message -> itemMessages.add(toMessage(message)));
+            Set<String> failures = new HashSet<>(itemProcessor.processBatch(itemMessages, Deadline.NONE));
+
+            List<Message> processed = new ArrayList<>(messages.size());
+            for (Message message : messages) {
+                if (!failures.contains(message.messageId())) {
+                    processed.add(message);
+                }
+            }
+            delete(processed);
+            processedMessages.addAndGet(processed.size());
+            failedMessages.addAndGet(messages.size() - processed.size());
+        } catch (Exception e) {
+            LOGGER.error("Error processing {} messages", messages.size(), e);
+            failedMessages.addAndGet(messages.size());
+        } finally {
+            inFlight.remove(messages);
+        }
+    }
+
+    static ItemMessage toMessage(Message message) {
+        long sentTimestamp = ItemMessage.parseSentTimestamp(message.attributesAsStrings().get(ItemMessage.SENT_TIMESTAMP_ATTRIBUTE));
+        Map<String, MessageAttributeValue> attributes = message.messageAttributes();
+        MessageAttributeValue contentType = attributes.get(ItemMessage.CONTENT_TYPE_ATTRIBUTE);
+        MessageAttributeValue payload = attributes.get(ItemMessage.PAYLOAD_ATTRIBUTE);
+        return new ItemMessage(message.messageId(), message.body(),
+                contentType != null ? contentType.stringValue() : null,
+                payload != null && payload.binaryValue() != null ? payload.binaryValue().asByteArray() : null,
+                sentTimestamp);
+    }
+
+    // A message that is not deleted is processed again, the idempotency cache keeps that from rewriting its items
+    private void delete(List<Message> messages) {
+        if (messages.isEmpty()) {
+            return;
+        }
+        List<DeleteMessageBatchRequestEntry> entries = new ArrayList<>(messages.size());
+        for (int i = 0; i < messages.size(); i++) {
+            entries.add(DeleteMessageBatchRequestEntry.builder()
+                    .id(String.valueOf(i))
+                    .receiptHandle(messages.get(i).receiptHandle())
+                    .build());
+        }
+        DeleteMessageBatchResponse response = sqsClient.deleteMessageBatch(DeleteMessageBatchRequest.builder()
+                .queueUrl(queueUrl)
+                .entries(entries)
+                .build());
+        if (response.hasFailed() && !response.failed().isEmpty()) {
+            LOGGER.warn("Could not delete {} processed messages: {}", response.failed().size(), response.failed());
+        }
+    }
+
+    private void extendVisibility() {
+        for (List<Message> messages : inFlight) {
+            try {
+                changeVisibility(messages, visibilityTimeoutSeconds);
+                LOGGER.debug("Extended visibility of {} messages still processing", messages.size());
+            } catch (Exception e) {
+                LOGGER.warn("Could not extend visibility of {} messages", messages.size(), e);
+            }
+        }
+    }
+
+    private void changeVisibility(List<Message> messages, int timeoutSeconds) {
+        List<ChangeMessageVisibilityBatchRequestEntry> entries = new ArrayList<>(messages.size());
+        for (int i = 0; i < messages.size(); i++) {
+            entries.add(ChangeMessageVisibilityBatchRequestEntry.builder()
+                    .id(String.valueOf(i))
+                    .receiptHandle(messages.get(i).receiptHandle())
+                    .visibilityTimeout(timeoutSeconds)
+                    .build());
+        }
+        sqsClient.changeMessageVisibilityBatch(ChangeMessageVisibilityBatchRequest.builder()
+                .queueUrl(queueUrl)
+                .entries(entries)
+                .build());
+    }
+
+    // Throughput since the last line and since the start
+    private synchronized void logStats() {
+        long now = System.nanoTime();
+        long messages = processedMessages.get();
+        double intervalSeconds = Math.max(now - lastStatsNanos, 1) / 1e9;
+        double totalSeconds = Math.max(now - startNanos, 1) / 1e9;
+        LOGGER.info("Processed {} messages ({} msg/s, {} msg/s overall), {} failed, {} batches in flight",
+                messages - lastStatsMessages, Math.round((messages - lastStatsMessages) / intervalSeconds),
+                Math.round(messages / totalSeconds), failedMessages.get(), inFlight.size());
+        lastStatsNanos = now;
+        lastStatsMessages = messages;
+    }
+
+    // Keeps a failing receive, e.g. a wrong queue URL, from spinning
+    private static void pause() {
+        try {
+            Thread.sleep(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static ThreadFactory threadFactory(String name, boolean daemon) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + count.incrementAndGet());
+            thread.setDaemon(daemon);
+            return thread;
+        };
+    }
+}
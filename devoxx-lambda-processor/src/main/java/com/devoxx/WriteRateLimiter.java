@@ -0,0 +1,108 @@
+package com.devoxx;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+// AIMD token bucket in front of the DynamoDB writes, one permit per item. A throttled write halves the rate,
+// every write that goes through adds ADDITIVE_INCREASE items/s back, so a burst settles at what the table
+// can take instead of being amplified by retries. The bucket holds at most one second worth of permits.
+public class WriteRateLimiter {
+
+    private static final double MULTIPLICATIVE_DECREASE = 0.5;
+    // Throttles reported by concurrent writers for the same burst count as one decrease
+    private static final long DECREASE_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final double minRate;
+    private final double maxRate;
+    private final double additiveIncrease;
+    private final LongSupplier nanoTime;
+    private double rate;
+    private double tokens;
+    private long lastRefill;
+    private long lastDecrease;
+
+    public WriteRateLimiter() {
+        // 40000 is the default per table write quota, so the limiter only kicks in once DynamoDB pushes back
+        this(EnvUtil.getInt("WRITE_RATE_MAX", 40000), EnvUtil.getInt("WRITE_RATE_MIN", 10),
+                EnvUtil.getInt("WRITE_RATE_INCREASE", 50));
+    }
+
+    public WriteRateLimiter(double maxRate, double minRate, double additiveIncrease) {
+        this(maxRate, minRate, additiveIncrease, System::nanoTime);
+    }
+
+    WriteRateLimiter(double maxRate, double minRate, double additiveIncrease, LongSupplier nanoTime) {
+        this.maxRate = maxRate;
+        this.minRate = minRate;
+        this.additiveIncrease = additiveIncrease;
+        this.nanoTime = nanoTime;
+        this.rate = maxRate;
+        this.tokens = maxRate;
+        this.lastRefill = nanoTime.getAsLong();
+        this.lastDecrease = lastRefill - DECREASE_INTERVAL_NANOS;
+    }
+
+    public enum Permit { ACQUIRED, PAST_DEADLINE, INTERRUPTED }
+
+    // Blocks until the permits are available. At the minimum rate a chunk can owe seconds of permits, a wait
+    // that would end past the deadline is not started and takes no permits, the caller leaves the items for
+    // redelivery instead of running into the function timeout.
+    public Permit acquire(int permits, Deadline deadline) {
+        long waitNanos = reserve(permits, deadline.remainingNanos());
+        if (waitNanos < 0) {
+            return Permit.PAST_DEADLINE;
+        }
+        if (waitNanos == 0) {
+            return Permit.ACQUIRED;
+        }
+        try {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+            return Permit.ACQUIRED;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Permit.INTERRUPTED;
+        }
+    }
+
+    synchronized long reserve(int permits) {
+        return reserve(permits, Long.MAX_VALUE);
+    }
+
+    // Takes the permits right away, the balance may go negative and the caller waits until it is paid back.
+    // Returns -1 without taking anything when that wait would be longer than maxWaitNanos.
+    synchronized long reserve(int permits, long maxWaitNanos) {
+        refill();
+        double balance = tokens - permits;
+        long waitNanos = balance >= 0 ? 0 : (long) (-balance / rate * TimeUnit.SECONDS.toNanos(1));
+        if (waitNanos > maxWaitNanos) {
+            return -1;
+        }
+        tokens = balance;
+        return waitNanos;
+    }
+
+    public synchronized void onSuccess() {
+        rate = Math.min(maxRate, rate + additiveIncrease);
+    }
+
+    public synchronized void onThrottle() {
+        long now = nanoTime.getAsLong();
+        if (now - lastDecrease < DECREASE_INTERVAL_NANOS) {
+            return;
+        }
+        lastDecrease = now;
+        refill();
+        rate = Math.max(minRate, rate * MULTIPLICATIVE_DECREASE);
+        tokens = Math.min(tokens, rate);
+    }
+
+    public synchronized double rate() {
+        return rate;
+    }
+
+    private void refill() {
+        long now = nanoTime.getAsLong();
+        tokens = Math.min(rate, tokens + (now - lastRefill) * rate / TimeUnit.SECONDS.toNanos(1));
+        lastRefill = now;
+    }
+}
@@ -0,0 +1,93 @@
+package com.devoxx;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Opt-in write sharding for tenants that outgrow a single partition (1000 WCU/s). With WRITE_SHARDS=N the
+// companyId partition key is stored as "<companyId>#<shard>", the shard derived from the uuid hash, so the
+// writes of one company spread over N partitions. The key attribute and the Item bean stay the same and
+// items written before sharding was enabled keep their plain companyId, readers query both (see ShardedItemReader).
+public class WriteSharding {
+
+    static final String SEPARATOR = "#";
+    // Partitions of the internal records. Sharding turns the company "devoxx-aggregate" into the partition
+    // "devoxx-aggregate#<shard>", the aggregate record of the company named like the shard, so these prefixes
+    // are reserved as a whole and not just with the separator. Priming deletes devoxx-priming/devoxx-priming.
+    private static final List<String> INTERNAL_PREFIXES = List.of("devoxx-aggregate", "devoxx-claim-check",
+            ItemProcessor.PRIMING_COMPANY_ID);
+    private final int shards;
+
+    public WriteSharding() {
+        this(EnvUtil.getInt("WRITE_SHARDS", 1));
+    }
+
+    public WriteSharding(int shards) {
+        this.shards = shards;
+    }
+
+    // The separator is reserved: a company named "foo#1" would share its partition with shard 1 of "foo",
+    // and the internal records (aggregates, claim check checkpoints) use it in their keys
+    public static boolean reservedCompanyId(String companyId) {
+        if (companyId == null) {
+            return false;
+        }
+        if (companyId.contains(SEPARATOR)) {
+            return true;
+        }
+        for (String prefix : INTERNAL_PREFIXES) {
+            if (companyId.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public static void checkCompanyId(String companyId) {
+        if (companyId == null || reservedCompanyId(companyId)) {
+            throw new IllegalArgumentException("Invalid companyId: " + companyId);
+        }
+    }
+
+    public boolean enabled() {
+        return shards > 1;
+    }
+
+    // String.hashCode is specified, so every writer and reader picks the same shard for a uuid
+    public String partitionKey(String companyId, String uuid) {
+        if (!enabled()) {
+            return companyId;
+        }
+        return companyId + SEPARATOR + Math.floorMod(uuid.hashCode(), shards);
+    }
+
+    public ItemKey storedKey(Item item) {
+        return new ItemKey(partitionKey(item.getCompanyId(), item.getUuid()), item.getUuid());
+    }
+
+    // The item as it is written to the table, the instance itself when sharding is off
+    public Item toStored(Item item) {
+        if (!enabled()) {
+            return item;
+        }
+        return new Item(item.getUuid(), partitionKey(item.getCompanyId(), item.getUuid()), item.getName(),
+                item.getPrice(), item.getQuantity());
+    }
+
+    // Restores the companyId of an item read from a shard
+    public Item fromStored(Item item, String companyId) {
+        item.setCompanyId(companyId);
+        return item;
+    }
+
+    // Every partition that can hold items of the company, the unsharded key first
+    public List<String> partitionKeys(String companyId) {
+        List<String> keys = new ArrayList<>(shards + 1);
+        keys.add(companyId);
+        if (enabled()) {
+            for (int shard = 0; shard < shards; shard++) {
+                keys.add(companyId + SEPARATOR + shard);
+            }
+        }
+        return keys;
+    }
+}
@@ -0,0 +1,155 @@
+package com.devoxx;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.CancellationReason;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.GetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItem;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItemsRequest;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItemsResponse;
+import software.amazon.awssdk.services.dynamodb.model.TransactionCanceledException;
+import software.amazon.awssdk.services.dynamodb.model.Update;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AggregatingItemWriterTest {
+
+    private final DynamoDbClient dynamoDbClient = Mockito.mock(DynamoDbClient.class);
+    private final InventoryAggregates aggregates = new InventoryAggregates(dynamoDbClient, "Items");
+    private final AggregatingItemWriter writer = new AggregatingItemWriter(dynamoDbClient, "Items", ItemTableSchema.INSTANCE,
+            Runnable::run, new ItemMetrics(), new WriteRateLimiter(), new WriteSharding(1), aggregates, false);
+
+    @Test
+    public void write_GivenNewAndOverwrittenItems_ShouldWriteItemsAndDeltaInOneTransactionPerCompany() {
+        // Stored before: 3 at 2.0
+        storedBefore(new Item("overwritten", "devoxx", "Phone", 2.0, 3));
+        when(dynamoDbClient.transactWriteItems(any(TransactWriteItemsRequest.class)))
+                .thenReturn(TransactWriteItemsResponse.builder().build());
+
+        List<Item> failed = writer.write(List.of(
+                new Item("new", "devoxx", "Laptop", 1.5, 2),
+                new Item("overwritten", "devoxx", "Phone", 2.0, 5),
+                new Item("other", "acme", "Desk", 10.0, 1)), Deadline.NONE);
+
+        Assertions.assertTrue(failed.isEmpty());
+        verify(dynamoDbClient, times(2)).batchGetItem(argThat((BatchGetItemRequest request) ->
+                request.requestItems().get("Items").consistentRead()));
+        // One new item (3.0) and two more phones (4.0), the puts conditioned on what was read
+        verify(dynamoDbClient).transactWriteItems(argThat((TransactWriteItemsRequest request) -> {
+            List<TransactWriteItem> actions = request.transactItems();
+            if (actions.size() != 3) {
+                return false;
+            }
+            Update update = actions.get(2).update();
+            return actions.get(0).put().conditionExpression().startsWith("attribute_not_exists")
+                    && actions.get(1).put().expressionAttributeValues().get(":quantity").n().equals("3")
+                    && update.key().get("companyId").s().equals(InventoryAggregates.PARTITION_PREFIX + "devoxx")
+                    && update.updateExpression().startsWith("ADD ")
+                    && update.expressionAttributeValues().get(":count").n().equals("1")
+                    && update.expressionAttributeValues().get(":quantity").n().equals("4")
+                    && new BigDecimal(update.expressionAttributeValues().get(":value").n()).compareTo(new BigDecimal("7")) == 0;
+        }));
+        verify(dynamoDbClient).transactWriteItems(argThat((TransactWriteItemsRequest request) ->
+                request.transactItems().size() == 2
+                        && request.transactItems().get(1).update().key().get("companyId").s()
+                        .equals(InventoryAggregates.PARTITION_PREFIX + "acme")));
+        verify(dynamoDbClient, never()).putItem(any(PutItemRequest.class));
+        verify(dynamoDbClient, never()).updateItem(any(UpdateItemRequest.class));
+    }
+
+    @Test
+    public void write_GivenFailedTransaction_ShouldReturnItemsWithoutChangingTotals() {
+        storedBefore();
+        when(dynamoDbClient.transactWriteItems(any(TransactWriteItemsRequest.class)))
+                .thenThrow(new RuntimeException("unavailable"));
+        Item item = new Item("1", "devoxx", "Laptop", 1.0, 1);
+
+        List<Item> failed = writer.write(List.of(item), Deadline.NONE);
+
+        Assertions.assertEquals(List.of(item), failed);
+        verify(dynamoDbClient, never()).updateItem(any(UpdateItemRequest.class));
+    }
+
+    @Test
+    public void write_GivenItemChangedAfterRead_ShouldReadAgainAndRetry() {
+        Map<String, AttributeValue> written = ItemTableSchema.INSTANCE.itemToMap(new Item("1", "devoxx", "Laptop", 1.0, 4), true);
+        when(dynamoDbClient.batchGetItem(any(BatchGetItemRequest.class)))
+                .thenReturn(BatchGetItemResponse.builder().responses(Map.of("Items", List.of())).build())
+                .thenReturn(BatchGetItemResponse.builder().responses(Map.of("Items", List.of(written))).build());
+        when(dynamoDbClient.transactWriteItems(any(TransactWriteItemsRequest.class)))
+                .thenThrow(TransactionCanceledException.builder().cancellationReasons(
+                        CancellationReason.builder().code("ConditionalCheckFailed").build(),
+                        CancellationReason.builder().code("None").build()).build())
+                .thenReturn(TransactWriteItemsResponse.builder().build());
+
+        List<Item> failed = writer.write(List.of(new Item("1", "devoxx", "Laptop", 1.0, 5)), Deadline.NONE);
+
+        Assertions.assertTrue(failed.isEmpty());
+        // Written by someone else in between, the retry only adds the one more laptop
+        verify(dynamoDbClient).transactWriteItems(argThat((TransactWriteItemsRequest request) ->
+                request.transactItems().get(0).put().expressionAttributeValues().containsKey(":quantity")
+                        && request.transactItems().get(0).put().expressionAttributeValues().get(":quantity").n().equals("4")
+                        && request.transactItems().get(1).update().expressionAttributeValues().get(":count").n().equals("0")
+                        && request.transactItems().get(1).update().expressionAttributeValues().get(":quantity").n().equals("1")));
+    }
+
+    @Test
+    public void write_GivenThrottlingTable_ShouldSlowDownAndRetryTheTransactions() {
+        ThrottlingDynamoDbClient throttlingClient = new ThrottlingDynamoDbClient(2, 1);
+        WriteRateLimiter rateLimiter = new WriteRateLimiter(1000, 10, 50);
+        AggregatingItemWriter throttledWriter = new AggregatingItemWriter(throttlingClient, "Items",
+                ItemTableSchema.INSTANCE, Runnable::run, new ItemMetrics(), rateLimiter, new WriteSharding(1),
+                new InventoryAggregates(throttlingClient, "Items"), false);
+
+        List<Item> failed = throttledWriter.write(List.of(
+                new Item("1", "devoxx", "Laptop", 1.0, 1),
+                new Item("2", "acme", "Desk", 10.0, 1)), Deadline.NONE);
+
+        Assertions.assertTrue(failed.isEmpty());
+        Assertions.assertEquals(2, throttlingClient.writtenItems());
+        // One aggregate update per company, none of them from a cancelled transaction
+        Assertions.assertEquals(2, throttlingClient.updates());
+        Assertions.assertTrue(rateLimiter.rate() < 1000);
+    }
+
+    @Test
+    public void get_GivenAggregateRecord_ShouldReadItWithOneGetItem() {
+        when(dynamoDbClient.getItem(any(GetItemRequest.class))).thenReturn(GetItemResponse.builder().item(Map.of(
+                "itemCount", AttributeValue.fromN("2"),
+                "totalQuantity", AttributeValue.fromN("7"),
+                "stockValue", AttributeValue.fromN("13.5"))).build());
+
+        InventoryAggregate aggregate = aggregates.get("devoxx");
+
+        Assertions.assertEquals(new InventoryAggregate("devoxx", 2, 7, new BigDecimal("13.5")), aggregate);
+        verify(dynamoDbClient).getItem(argThat((GetItemRequest request) ->
+                request.key().get("uuid").s().equals(InventoryAggregates.SORT_KEY)));
+    }
+
+    private void storedBefore(Item... items) {
+        List<Map<String, AttributeValue>> stored = new ArrayList<>();
+        for (Item item : items) {
+            stored.add(ItemTableSchema.INSTANCE.itemToMap(item, true));
+        }
+        when(dynamoDbClient.batchGetItem(any(BatchGetItemRequest.class)))
+                .thenReturn(BatchGetItemResponse.builder().responses(Map.of("Items", stored)).build());
+    }
+}
@@ -0,0 +1,86 @@
+package com.devoxx;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.DynamoDbException;
+import software.amazon.awssdk.services.dynamodb.model.ProvisionedThroughputExceededException;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class AwsSdkClientUtilTest {
+
+    private final AtomicInteger requests = new AtomicInteger();
+    private HttpServer server;
+    private int status;
+    private String errorType;
+
+    @BeforeEach
+    public void setup() throws Exception {
+        System.setProperty("aws.region", "eu-central-1");
+        System.setProperty("aws.accessKeyId", "test");
+        System.setProperty("aws.secretAccessKey", "test");
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", exchange -> {
+            requests.incrementAndGet();
+            exchange.getRequestBody().readAllBytes();
+            byte[] body = ("{\"__type\":\"com.amazonaws.dynamodb.v20120810#" + errorType + "\",\"message\":\"stub\"}")
+                    .getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/x-amz-json-1.0");
+            exchange.sendResponseHeaders(status, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.start();
+        System.setProperty("ENDPOINT", "http://localhost:" + server.getAddress().getPort());
+    }
+
+    @AfterEach
+    public void tearDown() {
+        System.clearProperty("ENDPOINT");
+        server.stop(0);
+    }
+
+    @Test
+    public void createDynamoDbClient_GivenThrottling_ShouldNotRetryInTheSdk() {
+        status = 400;
+        errorType = "ProvisionedThroughputExceededException";
+
+        try (DynamoDbClient client = AwsSdkClientUtil.createDynamoDbClient()) {
+            Assertions.assertThrows(ProvisionedThroughputExceededException.class,
+                    () -> client.describeTable(r -> r.tableName("Items")));
+        }
+
+        Assertions.assertEquals(1, requests.get());
+    }
+
+    @Test
+    public void createDynamoDbReadClient_GivenThrottling_ShouldRetryInTheSdk() {
+        status = 400;
+        errorType = "ProvisionedThroughputExceededException";
+
+        try (DynamoDbClient client = AwsSdkClientUtil.createDynamoDbReadClient()) {
+            Assertions.assertThrows(ProvisionedThroughputExceededException.class,
+                    () -> client.describeTable(r -> r.tableName("Items")));
+        }
+
+        Assertions.assertEquals(3, requests.get());
+    }
+
+    @Test
+    public void createDynamoDbClient_GivenServerError_ShouldRetryInTheSdk() {
+        status = 500;
+        errorType = "InternalServerError";
+
+        try (DynamoDbClient client = AwsSdkClientUtil.createDynamoDbClient()) {
+            Assertions.assertThrows(DynamoDbException.class, () -> client.describeTable(r -> r.tableName("Items")));
+        }
+
+        Assertions.assertEquals(3, requests.get());
+    }
+}
@@ -0,0 +1,226 @@
+package com.devoxx;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.PutRequest;
+import software.amazon.awssdk.services.dynamodb.model.WriteRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BatchItemWriterTest {
+
+    private DynamoDbClient dynamoDbClient;
+    private DynamoDbTable<Item> itemTable;
+    private BatchItemWriter batchItemWriter;
+
+    @BeforeEach
+    public void setup() {
+        dynamoDbClient = Mockito.mock(DynamoDbClient.class);
+        DynamoDbEnhancedClient enhancedClient = DynamoDbEnhancedClient.builder()
+                .dynamoDbClient(dynamoDbClient)
+                .build();
+        itemTable = enhancedClient.table("Items", ItemTableSchema.INSTANCE);
+        batchItemWriter = new BatchItemWriter(enhancedClient, itemTable);
+    }
+
+    @Test
+    public void chunk_GivenMoreThan25Items_ShouldSplitIntoBatchesOf25() {
+        List<List<Item>> chunks = BatchItemWriter.chunk(items(60));
+
+        Assertions.assertEquals(3, chunks.size());
+        Assertions.assertEquals(25, chunks.get(0).size());
+        Assertions.assertEquals(25, chunks.get(1).size());
+        Assertions.assertEquals(10, chunks.get(2).size());
+    }
+
+    @Test
+    public void chunk_GivenDuplicateKey_ShouldStartNewBatch() {
+        List<Item> items = items(3);
+        items.add(new Item("uuid-1", "devoxx", "Monitor", 10.0, 2));
+
+        List<List<Item>> chunks = BatchItemWriter.chunk(items);
+
+        Assertions.assertEquals(2, chunks.size());
+        Assertions.assertEquals(1, chunks.get(1).size());
+    }
+
+    @Test
+    public void write_GivenUnprocessedItems_ShouldRetryOnlyUnprocessed() {
+        List<Item> items = items(3);
+        when(dynamoDbClient.batchWriteItem(any(BatchWriteItemRequest.class)))
+                .thenReturn(unprocessed(items.get(1)))
+                .thenReturn(BatchWriteItemResponse.builder().build());
+
+        List<Item> failed = batchItemWriter.write(items);
+
+        Assertions.assertTrue(failed.isEmpty());
+        verify(dynamoDbClient, times(2)).batchWriteItem(any(BatchWriteItemRequest.class));
+    }
+
+    @Test
+    public void write_GivenItemNeverProcessed_ShouldReturnOnlyThatItem() {
+        List<Item> items = items(3);
+        when(dynamoDbClient.batchWriteItem(any(BatchWriteItemRequest.class)))
+                .thenReturn(unprocessed(items.get(2)));
+
+        List<Item> failed = batchItemWriter.write(items);
+
+        Assertions.assertEquals(List.of(items.get(2)), failed);
+    }
+
+    @Test
+    public void write_GivenConcurrentExecutor_ShouldWriteAllBatches() {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        BatchItemWriter concurrentWriter = new BatchItemWriter(
+                DynamoDbEnhancedClient.builder().dynamoDbClient(dynamoDbClient).build(), itemTable, executor, new ItemMetrics());
+        when(dynamoDbClient.batchWriteItem(any(BatchWriteItemRequest.class)))
+                .thenReturn(BatchWriteItemResponse.builder().build());
+
+        List<Item> failed = concurrentWriter.write(items(100));
+        executor.shutdown();
+
+        Assertions.assertTrue(failed.isEmpty());
+        verify(dynamoDbClient, times(4)).batchWriteItem(any(BatchWriteItemRequest.class));
+    }
+
+    @Test
+    public void chunk_GivenFewerItemsThanFullChunks_ShouldSpreadOverParallelism() {
+        List<List<Item>> chunks = BatchItemWriter.chunk(items(10), 4);
+
+        Assertions.assertEquals(4, chunks.size());
+        Assertions.assertEquals(3, chunks.get(0).size());
+        Assertions.assertEquals(1, chunks.get(3).size());
+    }
+
+    @Test
+    public void write_GivenSqsSizedBatchAndParallelism_ShouldHaveSeveralWritesInFlight() {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        // Only released once two writes run at the same time
+        CountDownLatch concurrentWrites = new CountDownLatch(2);
+        AtomicInteger overlapping = new AtomicInteger();
+        BatchItemWriter concurrentWriter = new BatchItemWriter(
+                DynamoDbEnhancedClient.builder().dynamoDbClient(dynamoDbClient).build(), itemTable, executor,
+                new ItemMetrics(), new WriteRateLimiter(), new HotPartitionDetector(new ItemMetrics()),
+                new WriteSharding(1), 4);
+        when(dynamoDbClient.batchWriteItem(any(BatchWriteItemRequest.class))).thenAnswer(invocation -> {
+            concurrentWrites.countDown();
+            if (concurrentWrites.await(5, TimeUnit.SECONDS)) {
+                overlapping.incrementAndGet();
+            }
+            return BatchWriteItemResponse.builder().build();
+        });
+
+        try {
+            List<Item> failed = concurrentWriter.write(items(10));
+
+            Assertions.assertTrue(failed.isEmpty());
+            Assertions.assertEquals(4, overlapping.get());
+            verify(dynamoDbClient, times(4)).batchWriteItem(any(BatchWriteItemRequest.class));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void write_GivenThrottlingTable_ShouldSlowDownAndReportHotPartition() {
+        ThrottlingDynamoDbClient throttlingClient = new ThrottlingDynamoDbClient(1, 10);
+        ItemMetrics metrics = new ItemMetrics();
+        WriteRateLimiter rateLimiter = new WriteRateLimiter(1000, 10, 50);
+        AtomicLong clock = new AtomicLong();
+        HotPartitionDetector hotPartitions = new HotPartitionDetector(800, metrics, clock::get);
+        BatchItemWriter throttledWriter = new BatchItemWriter(
+                DynamoDbEnhancedClient.builder().dynamoDbClient(throttlingClient).build(), itemTable,
+                Runnable::run, metrics, rateLimiter, hotPartitions, new WriteSharding(1));
+
+        List<Item> failed = throttledWriter.write(items(50));
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        hotPartitions.record(List.of(), List.of());
+
+        Assertions.assertTrue(failed.isEmpty());
+        Assertions.assertEquals(50, throttlingClient.writtenItems());
+        Assertions.assertTrue(rateLimiter.rate() < 1000);
+        Assertions.assertEquals(Set.of("devoxx"), hotPartitions.hotPartitions());
+    }
+
+    @Test
+    public void write_GivenRateLimitWaitPastDeadline_ShouldSkipInsteadOfSleeping() {
+        AtomicLong clock = new AtomicLong();
+        ItemMetrics metrics = new ItemMetrics();
+        // 10 items/s with an empty bucket, 25 items would wait 2.5 s
+        WriteRateLimiter rateLimiter = new WriteRateLimiter(10, 10, 0, clock::get);
+        rateLimiter.reserve(10);
+        BatchItemWriter limitedWriter = new BatchItemWriter(
+                DynamoDbEnhancedClient.builder().dynamoDbClient(dynamoDbClient).build(), itemTable, Runnable::run,
+                metrics, rateLimiter, new HotPartitionDetector(metrics), new WriteSharding(1));
+        List<Item> items = items(25);
+
+        List<Item> failed = limitedWriter.write(items, new Deadline(TimeUnit.SECONDS.toNanos(1), clock::get));
+
+        Assertions.assertEquals(items, failed);
+        verify(dynamoDbClient, times(0)).batchWriteItem(any(BatchWriteItemRequest.class));
+    }
+
+    @Test
+    public void write_GivenDeadlinePassedDuringWrite_ShouldNotRetryUnprocessedItems() {
+        AtomicLong clock = new AtomicLong();
+        Deadline deadline = new Deadline(100, clock::get);
+        List<Item> items = items(2);
+        when(dynamoDbClient.batchWriteItem(any(BatchWriteItemRequest.class))).thenAnswer(invocation -> {
+            clock.set(200);
+            return unprocessed(items.get(1));
+        });
+
+        List<Item> failed = batchItemWriter.write(items, deadline);
+
+        Assertions.assertEquals(List.of(items.get(1)), failed);
+        verify(dynamoDbClient, times(1)).batchWriteItem(any(BatchWriteItemRequest.class));
+    }
+
+    @Test
+    public void write_GivenExpiredDeadline_ShouldNotStartAnyWrite() {
+        Deadline deadline = new Deadline(0, () -> 1);
+
+        List<Item> failed = batchItemWriter.write(items(30), deadline);
+
+        Assertions.assertEquals(30, failed.size());
+        verify(dynamoDbClient, times(0)).batchWriteItem(any(BatchWriteItemRequest.class));
+    }
+
+    private BatchWriteItemResponse unprocessed(Item item) {
+        WriteRequest writeRequest = WriteRequest.builder()
+                .putRequest(PutRequest.builder().item(itemTable.tableSchema().itemToMap(item, true)).build())
+                .build();
+        return BatchWriteItemResponse.builder()
+                .unprocessedItems(Map.of("Items", List.of(writeRequest)))
+                .build();
+    }
+
+    private static List<Item> items(int count) {
+        List<Item> items = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            items.add(new Item("uuid-" + i, "devoxx", "Laptop", 1299.99, i));
+        }
+        return items;
+    }
+}
@@ -0,0 +1,167 @@
+package com.devoxx;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.http.AbortableInputStream;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.GetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.PutItemResponse;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+class ClaimCheckProcessorTest {
+
+    private static final ItemMessage CLAIM_CHECK = new ItemMessage("claim-check",
+            "{\"bucket\":\"imports\",\"key\":\"items.ndjson\"}", ClaimCheckProcessor.CONTENT_TYPE, null);
+
+    private S3Client s3Client;
+    private BatchItemWriter batchItemWriter;
+    private ClaimCheckProcessor claimCheckProcessor;
+    private final List<GetObjectRequest> getObjectRequests = new ArrayList<>();
+    private final List<Item> writtenItems = new ArrayList<>();
+    private Map<String, AttributeValue> checkpoint = Map.of();
+    private final AtomicInteger writes = new AtomicInteger();
+    private int failingWrite = -1;
+
+    @BeforeEach
+    public void setup() {
+        s3Client = Mockito.mock(S3Client.class);
+        when(s3Client.headObject(any(HeadObjectRequest.class))).thenReturn(HeadObjectResponse.builder().eTag("\"etag\"").build());
+
+        DynamoDbClient dynamoDbClient = Mockito.mock(DynamoDbClient.class);
+        when(dynamoDbClient.getItem(any(GetItemRequest.class)))
+                .thenAnswer(invocation -> GetItemResponse.builder().item(checkpoint).build());
+        when(dynamoDbClient.putItem(any(PutItemRequest.class))).thenAnswer(invocation -> {
+            checkpoint = invocation.getArgument(0, PutItemRequest.class).item();
+            return PutItemResponse.builder().build();
+        });
+
+        batchItemWriter = Mockito.mock(BatchItemWriter.class);
+        // The failingWrite-th call fails its whole group
+        when(batchItemWriter.writeItems(any(), any())).thenAnswer(invocation -> {
+            List<Item> group = invocation.getArgument(0);
+            if (writes.incrementAndGet() == failingWrite) {
+                return new ItemWriter.Result(group, 0);
+            }
+            writtenItems.addAll(group);
+            return new ItemWriter.Result(List.of(), group.size());
+        });
+        claimCheckProcessor = new ClaimCheckProcessor(s3Client, dynamoDbClient, "Items", batchItemWriter, 3);
+    }
+
+    @Test
+    public void process_GivenGzipNdjsonObject_ShouldWriteAllItemsInGroups() throws Exception {
+        object(gzip(ndjson(7)));
+
+        long written = claimCheckProcessor.process(CLAIM_CHECK).written();
+
+        Assertions.assertEquals(7, written);
+        Assertions.assertEquals(ndjsonUuids(7), uuids(writtenItems));
+        Mockito.verify(batchItemWriter, Mockito.times(3)).writeItems(any(), any());
+        Assertions.assertTrue(checkpoint.get("completed").bool());
+        Assertions.assertEquals("7", checkpoint.get("items").n());
+    }
+
+    @Test
+    public void process_GivenCompletedCheckpoint_ShouldNotImportAgain() throws Exception {
+        object(ndjson(4));
+        claimCheckProcessor.process(CLAIM_CHECK);
+        writtenItems.clear();
+
+        long written = claimCheckProcessor.process(CLAIM_CHECK).written();
+
+        Assertions.assertEquals(0, written);
+        Assertions.assertTrue(writtenItems.isEmpty());
+    }
+
+    @Test
+    public void process_GivenFailedGroup_ShouldResumeAfterLastCheckpointWithRangeRequest() throws Exception {
+        object(ndjson(7));
+        failingWrite = 2;
+
+        Assertions.assertThrows(IOException.class, () -> claimCheckProcessor.process(CLAIM_CHECK));
+        Assertions.assertEquals("3", checkpoint.get("items").n());
+
+        long written = claimCheckProcessor.process(CLAIM_CHECK).written();
+
+        Assertions.assertEquals(4, written);
+        Assertions.assertEquals(ndjsonUuids(7), uuids(writtenItems));
+        Assertions.assertNotNull(getObjectRequests.get(1).range());
+    }
+
+    @Test
+    public void process_GivenFailedGroupOfGzipObject_ShouldSkipWrittenItemsOnResume() throws Exception {
+        object(gzip(ndjson(7)));
+        failingWrite = 3;
+
+        Assertions.assertThrows(IOException.class, () -> claimCheckProcessor.process(CLAIM_CHECK));
+        long written = claimCheckProcessor.process(CLAIM_CHECK).written();
+
+        Assertions.assertEquals(1, written);
+        Assertions.assertEquals(ndjsonUuids(7), uuids(writtenItems));
+        Assertions.assertNull(getObjectRequests.get(1).range());
+    }
+
+    // Serves the object like S3 does, honouring "bytes=<start>-" ranges
+    private void object(byte[] content) {
+        when(s3Client.getObject(any(GetObjectRequest.class))).thenAnswer(invocation -> {
+            GetObjectRequest request = invocation.getArgument(0);
+            getObjectRequests.add(request);
+            int start = request.range() == null ? 0
+                    : Integer.parseInt(request.range().substring("bytes=".length(), request.range().length() - 1));
+            byte[] body = Arrays.copyOfRange(content, start, content.length);
+            return new ResponseInputStream<>(GetObjectResponse.builder().build(),
+                    AbortableInputStream.create(new ByteArrayInputStream(body)));
+        });
+    }
+
+    private static byte[] ndjson(int count) {
+        StringBuilder ndjson = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            ndjson.append(UnitTest.item("uuid-" + i)).append('\n');
+        }
+        return ndjson.toString().getBytes();
+    }
+
+    private static List<String> ndjsonUuids(int count) {
+        List<String> uuids = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            uuids.add("uuid-" + i);
+        }
+        return uuids;
+    }
+
+    private static byte[] gzip(byte[] content) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(output)) {
+            gzip.write(content);
+        }
+        return output.toByteArray();
+    }
+
+    private static List<String> uuids(List<Item> items) {
+        return items.stream().map(Item::getUuid).toList();
+    }
+}
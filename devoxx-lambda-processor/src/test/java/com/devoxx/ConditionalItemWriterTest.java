@@ -0,0 +1,78 @@
+package com.devoxx;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.PutItemResponse;
+
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ConditionalItemWriterTest {
+
+    private final DynamoDbClient dynamoDbClient = Mockito.mock(DynamoDbClient.class);
+    private final ConditionalItemWriter writer = new ConditionalItemWriter(dynamoDbClient, "Items", ItemTableSchema.INSTANCE,
+            Runnable::run, new ItemMetrics(), new WriteRateLimiter(), new WriteSharding(1));
+
+    @Test
+    public void write_GivenItem_ShouldPutWithContentHashCondition() {
+        Item item = new Item("1", "devoxx", "Laptop", 1.0, 1);
+        when(dynamoDbClient.putItem(any(PutItemRequest.class))).thenReturn(PutItemResponse.builder().build());
+
+        List<Item> failed = writer.write(List.of(item), Deadline.NONE);
+
+        Assertions.assertTrue(failed.isEmpty());
+        verify(dynamoDbClient).putItem(argThat((PutItemRequest request) ->
+                request.conditionExpression() != null
+                        && request.item().get(ConditionalItemWriter.CONTENT_HASH_ATTRIBUTE).s()
+                        .equals(IdempotencyCache.contentHash(item))));
+    }
+
+    @Test
+    public void write_GivenUnchangedStoredItem_ShouldNeitherFailNorCountIt() {
+        when(dynamoDbClient.putItem(any(PutItemRequest.class)))
+                .thenThrow(ConditionalCheckFailedException.builder().message("unchanged").build());
+
+        ItemWriter.Result result = writer.writeItems(List.of(new Item("1", "devoxx", "Laptop", 1.0, 1)), Deadline.NONE);
+
+        Assertions.assertTrue(result.failed().isEmpty());
+        Assertions.assertEquals(0, result.written());
+    }
+
+    @Test
+    public void write_GivenThrottlingTable_ShouldSlowDownAndRetryThePuts() {
+        ThrottlingDynamoDbClient throttlingClient = new ThrottlingDynamoDbClient(2, 1);
+        WriteRateLimiter rateLimiter = new WriteRateLimiter(1000, 10, 50);
+        ConditionalItemWriter throttledWriter = new ConditionalItemWriter(throttlingClient, "Items",
+                ItemTableSchema.INSTANCE, Runnable::run, new ItemMetrics(), rateLimiter, new WriteSharding(1));
+
+        List<Item> failed = throttledWriter.write(List.of(
+                new Item("1", "devoxx", "Laptop", 1.0, 1),
+                new Item("2", "devoxx", "Phone", 2.0, 1)), Deadline.NONE);
+
+        Assertions.assertTrue(failed.isEmpty());
+        Assertions.assertEquals(2, throttlingClient.writtenItems());
+        Assertions.assertTrue(rateLimiter.rate() < 1000);
+    }
+
+    @Test
+    public void write_GivenThrottlingPastMaxAttempts_ShouldReturnTheItem() {
+        ThrottlingDynamoDbClient throttlingClient = new ThrottlingDynamoDbClient(BatchItemWriter.MAX_ATTEMPTS, 1);
+        ConditionalItemWriter throttledWriter = new ConditionalItemWriter(throttlingClient, "Items",
+                ItemTableSchema.INSTANCE, Runnable::run, new ItemMetrics(), new WriteRateLimiter(1000, 10, 50),
+                new WriteSharding(1));
+        Item item = new Item("1", "devoxx", "Laptop", 1.0, 1);
+
+        List<Item> failed = throttledWriter.write(List.of(item), Deadline.NONE);
+
+        Assertions.assertEquals(List.of(item), failed);
+        Assertions.assertEquals(0, throttlingClient.writtenItems());
+    }
+}
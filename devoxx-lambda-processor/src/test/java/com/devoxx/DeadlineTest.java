@@ -0,0 +1,18 @@
+package com.devoxx;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class DeadlineTest {
+
+    @Test
+    public void budgetMillis_GivenDefaultTimeout_ShouldKeepFullReserve() {
+        Assertions.assertEquals(26500, Deadline.budgetMillis(30000));
+    }
+
+    @Test
+    public void budgetMillis_GivenTimeoutBelowReserve_ShouldLeaveMostOfTheTime() {
+        Assertions.assertEquals(750, Deadline.budgetMillis(1000));
+        Assertions.assertEquals(2625, Deadline.budgetMillis(3500));
+    }
+}
@@ -0,0 +1,128 @@
+package com.devoxx;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.GetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
+import software.amazon.awssdk.services.dynamodb.model.QueryResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class DevoxxReadLambdaTest {
+
+    private final DynamoDbClient dynamoDbClient = Mockito.mock(DynamoDbClient.class);
+    private DevoxxReadLambda devoxxReadLambda;
+
+    @BeforeEach
+    public void setup() {
+        System.setProperty("aws.region", "eu-central-1");
+        System.setProperty("aws.accessKeyId", "test");
+        System.setProperty("aws.secretAccessKey", "test");
+        devoxxReadLambda = new DevoxxReadLambda(dynamoDbClient);
+    }
+
+    @Test
+    public void handleRequest_GivenRepeatedLookup_ShouldReadDynamoDbOnce() throws Exception {
+        when(dynamoDbClient.getItem(any(GetItemRequest.class))).thenReturn(GetItemResponse.builder()
+                .item(ItemTableSchema.INSTANCE.itemToMap(new Item("1", "devoxx", "Laptop", 1.5, 2), true))
+                .build());
+
+        JsonNode first = invoke("{\"companyId\":\"devoxx\",\"uuid\":\"1\"}");
+        JsonNode second = invoke("{\"companyId\":\"devoxx\",\"uuid\":\"1\"}");
+
+        Assertions.assertEquals("Laptop", first.get("item").get("name").asText());
+        Assertions.assertEquals(first, second);
+        verify(dynamoDbClient, times(1)).getItem(any(GetItemRequest.class));
+    }
+
+    @Test
+    public void handleRequest_GivenMissingItem_ShouldReturnNull() throws Exception {
+        when(dynamoDbClient.getItem(any(GetItemRequest.class))).thenReturn(GetItemResponse.builder().build());
+
+        JsonNode response = invoke("{\"companyId\":\"devoxx\",\"uuid\":\"missing\"}");
+
+        Assertions.assertTrue(response.get("item").isNull());
+    }
+
+    @Test
+    public void handleRequest_GivenListWithFields_ShouldProjectAndPage() throws Exception {
+        // The enhanced client pages through queryPaginator, which sends the query calls below
+        when(dynamoDbClient.queryPaginator(any(QueryRequest.class))).thenCallRealMethod();
+        when(dynamoDbClient.query(any(QueryRequest.class))).thenAnswer(invocation -> {
+            QueryRequest request = invocation.getArgument(0);
+            if (request.exclusiveStartKey() == null || request.exclusiveStartKey().isEmpty()) {
+                return QueryResponse.builder()
+                        .items(Map.of("companyId", AttributeValue.fromS("devoxx"), "uuid", AttributeValue.fromS("1"),
+                                "name", AttributeValue.fromS("Laptop")))
+                        .lastEvaluatedKey(Map.of("companyId", AttributeValue.fromS("devoxx"), "uuid", AttributeValue.fromS("1")))
+                        .build();
+            }
+            return QueryResponse.builder()
+                    .items(Map.of("companyId", AttributeValue.fromS("devoxx"), "uuid", AttributeValue.fromS("2"),
+                            "name", AttributeValue.fromS("Phone")))
+                    .build();
+        });
+
+        JsonNode first = invoke("{\"companyId\":\"devoxx\",\"fields\":[\"name\"],\"limit\":1}");
+        JsonNode second = invoke("{\"companyId\":\"devoxx\",\"fields\":[\"name\"],\"limit\":1,\"nextToken\":\""
+                + first.get("nextToken").asText() + "\"}");
+
+        Assertions.assertEquals("Laptop", first.get("items").get(0).get("name").asText());
+        Assertions.assertFalse(first.get("items").get(0).has("price"));
+        Assertions.assertEquals("Phone", second.get("items").get(0).get("name").asText());
+        Assertions.assertFalse(second.has("nextToken"));
+        verify(dynamoDbClient).query(argThat((QueryRequest request) -> request.limit() == 1
+                && request.projectionExpression() != null
+                && request.expressionAttributeNames().containsValue("name")
+                && !request.expressionAttributeNames().containsValue("price")
+                && request.hasExclusiveStartKey()
+                && request.exclusiveStartKey().get("uuid").s().equals("1")));
+    }
+
+    @Test
+    public void handleRequest_GivenUnknownField_ShouldFail() {
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> invoke("{\"companyId\":\"devoxx\",\"fields\":[\"secret\"]}"));
+    }
+
+    @Test
+    public void handleRequest_GivenReservedCompanyId_ShouldFailWithoutReading() {
+        for (String companyId : List.of(InventoryAggregates.PARTITION_PREFIX + "devoxx",
+                ClaimCheckProcessor.CHECKPOINT_PARTITION_PREFIX + "import", "devoxx#0", ItemProcessor.PRIMING_COMPANY_ID)) {
+            Assertions.assertThrows(IllegalArgumentException.class,
+                    () -> invoke("{\"companyId\":\"" + companyId + "\",\"uuid\":\"aggregate\"}"));
+        }
+
+        verifyNoInteractions(dynamoDbClient);
+    }
+
+    @Test
+    public void prime_ShouldNotReadDynamoDb() throws Exception {
+        devoxxReadLambda.prime();
+
+        verifyNoInteractions(dynamoDbClient);
+    }
+
+    private JsonNode invoke(String request) throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        devoxxReadLambda.handleRequest(new ByteArrayInputStream(request.getBytes(StandardCharsets.UTF_8)), output, null);
+        return ItemJson.MAPPER.readTree(output.toByteArray());
+    }
+}
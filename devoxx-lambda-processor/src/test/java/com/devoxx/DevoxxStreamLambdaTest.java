@@ -0,0 +1,83 @@
+package com.devoxx;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+class DevoxxStreamLambdaTest {
+
+    private DevoxxStreamLambda devoxxStreamLambda;
+
+    @BeforeEach
+    public void setup() {
+        System.setProperty("aws.region", "eu-central-1");
+        System.setProperty("aws.accessKeyId", "test");
+        System.setProperty("aws.secretAccessKey", "test");
+        DynamoDbClient dynamoDbClient = Mockito.mock(DynamoDbClient.class);
+        when(dynamoDbClient.batchWriteItem(any(BatchWriteItemRequest.class)))
+                .thenReturn(BatchWriteItemResponse.builder().build());
+        devoxxStreamLambda = new DevoxxStreamLambda(dynamoDbClient);
+    }
+
+    @Test
+    public void readMessages_GivenSqsEvent_ShouldKeepMessageIdAndBody() throws Exception {
+        try (InputStream input = getClass().getResourceAsStream("/events/event1.json")) {
+            List<ItemMessage> messages = DevoxxStreamLambda.readMessages(input);
+
+            Assertions.assertEquals(1, messages.size());
+            Assertions.assertEquals("1b56bbdb-eb77-4349-8a9a-493f605752b1", messages.get(0).messageId());
+            Item item = ItemJson.READER.readValue(messages.get(0).body());
+            Assertions.assertEquals("a955ae76-6729-4073-af2e-63066ac1f61a", item.getUuid());
+        }
+    }
+
+    @Test
+    public void readMessages_GivenAttributes_ShouldKeepContentTypePayloadAndSentTimestamp() throws Exception {
+        String event = "{\"Records\":[{\"messageId\":\"smile\",\"body\":\"-\",\"attributes\":{\"SentTimestamp\":\"1700000000000\"},\"messageAttributes\":{"
+                + "\"contentType\":{\"stringValue\":\"application/x-jackson-smile\",\"dataType\":\"String\"},"
+                + "\"payload\":{\"binaryValue\":\"AQID\",\"dataType\":\"Binary\"},"
+                + "\"other\":{\"stringValue\":\"ignored\",\"dataType\":\"String\"}}}]}";
+
+        List<ItemMessage> messages = DevoxxStreamLambda.readMessages(new ByteArrayInputStream(event.getBytes(StandardCharsets.UTF_8)));
+
+        Assertions.assertEquals("application/x-jackson-smile", messages.get(0).contentType());
+        Assertions.assertArrayEquals(new byte[]{1, 2, 3}, messages.get(0).payload());
+        Assertions.assertEquals(1700000000000L, messages.get(0).sentTimestamp());
+    }
+
+    @Test
+    public void handleRequest_GivenValidEvent_ShouldReportNoFailures() throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (InputStream input = getClass().getResourceAsStream("/events/event2.json")) {
+            devoxxStreamLambda.handleRequest(input, output, null);
+        }
+
+        JsonNode response = ItemJson.MAPPER.readTree(output.toByteArray());
+        Assertions.assertTrue(response.get("batchItemFailures").isEmpty());
+    }
+
+    @Test
+    public void handleRequest_GivenInvalidBody_ShouldReportThatMessage() throws Exception {
+        String event = "{\"Records\":[{\"messageId\":\"invalid\",\"body\":\"not json\",\"attributes\":{\"SentTimestamp\":\"1\"}}]}";
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        devoxxStreamLambda.handleRequest(new ByteArrayInputStream(event.getBytes(StandardCharsets.UTF_8)), output, null);
+
+        JsonNode response = ItemJson.MAPPER.readTree(output.toByteArray());
+        Assertions.assertEquals("invalid", response.get("batchItemFailures").get(0).get("itemIdentifier").asText());
+    }
+}
@@ -0,0 +1,28 @@
+package com.devoxx;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.IntStream;
+
+class EventLogSamplerTest {
+
+    @Test
+    public void sample_GivenZeroRate_ShouldNeverSample() {
+        EventLogSampler sampler = new EventLogSampler(0);
+        Assertions.assertTrue(IntStream.range(0, 1000).noneMatch(i -> sampler.sample()));
+    }
+
+    @Test
+    public void sample_GivenFullRate_ShouldAlwaysSample() {
+        EventLogSampler sampler = new EventLogSampler(1);
+        Assertions.assertTrue(IntStream.range(0, 1000).allMatch(i -> sampler.sample()));
+    }
+
+    @Test
+    public void sample_GivenTenPercent_ShouldSampleRoughlyOneInTen() {
+        EventLogSampler sampler = new EventLogSampler(0.1);
+        long sampled = IntStream.range(0, 10000).filter(i -> sampler.sample()).count();
+        Assertions.assertTrue(sampled > 700 && sampled < 1300, "sampled " + sampled);
+    }
+}
@@ -0,0 +1,78 @@
+package com.devoxx;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+class HotPartitionDetectorTest {
+
+    private final AtomicLong clock = new AtomicLong();
+    private final HotPartitionDetector detector = new HotPartitionDetector(800, new ItemMetrics(), clock::get);
+
+    @Test
+    public void record_GivenCompanyAboveThreshold_ShouldReportIt() {
+        detector.record(items("hot", 900), List.of());
+        detector.record(items("cold", 10), List.of());
+
+        nextWindow();
+
+        Assertions.assertEquals(Set.of("hot"), detector.hotPartitions());
+    }
+
+    @Test
+    public void record_GivenThrottledCompany_ShouldReportIt() {
+        List<Item> items = items("throttled", 10);
+        detector.record(items, items.subList(0, 1));
+
+        nextWindow();
+
+        Assertions.assertEquals(Set.of("throttled"), detector.hotPartitions());
+    }
+
+    @Test
+    public void record_GivenQuietWindow_ShouldClearHotPartitions() {
+        detector.record(items("hot", 900), List.of());
+        nextWindow();
+
+        nextWindow();
+
+        Assertions.assertTrue(detector.hotPartitions().isEmpty());
+    }
+
+    @Test
+    public void record_GivenIdleGapAfterBurst_ShouldRateTheBurstOverItsOwnWindow() {
+        detector.record(items("burst", 900), List.of());
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(10));
+        detector.record(List.of(), List.of());
+
+        Assertions.assertEquals(Set.of("burst"), detector.hotPartitions());
+    }
+
+    @Test
+    public void endBatch_GivenOpenWindow_ShouldCloseItWithoutWaitingForNextWrite() {
+        detector.record(items("hot", 900), List.of());
+
+        detector.endBatch();
+
+        Assertions.assertEquals(Set.of("hot"), detector.hotPartitions());
+    }
+
+    private void nextWindow() {
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        detector.record(List.of(), List.of());
+    }
+
+    private static List<Item> items(String companyId, int count) {
+        List<Item> items = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            items.add(new Item("uuid-" + i, companyId, "Laptop", 1299.99, i));
+        }
+        return items;
+    }
+}
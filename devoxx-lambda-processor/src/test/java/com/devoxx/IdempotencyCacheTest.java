@@ -0,0 +1,44 @@
+package com.devoxx;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+class IdempotencyCacheTest {
+
+    private final AtomicLong clock = new AtomicLong();
+    private final IdempotencyCache cache = new IdempotencyCache(2, 60, clock::get);
+
+    @Test
+    public void unchanged_GivenSameContentWrittenBefore_ShouldReturnTrueOnlyForIdenticalItem() {
+        Item item = new Item("1", "devoxx", "Laptop", 1.0, 1);
+        cache.written(item, IdempotencyCache.contentHash(item));
+
+        Assertions.assertTrue(cache.unchanged(item, IdempotencyCache.contentHash(new Item("1", "devoxx", "Laptop", 1.0, 1))));
+        Assertions.assertFalse(cache.unchanged(item, IdempotencyCache.contentHash(new Item("1", "devoxx", "Laptop", 1.0, 2))));
+    }
+
+    @Test
+    public void processedMessage_GivenMoreMessagesThanCapacity_ShouldEvictLeastRecentlyUsed() {
+        cache.messageProcessed("first");
+        cache.messageProcessed("second");
+        cache.processedMessage("first");
+
+        cache.messageProcessed("third");
+
+        Assertions.assertTrue(cache.processedMessage("first"));
+        Assertions.assertFalse(cache.processedMessage("second"));
+        Assertions.assertTrue(cache.processedMessage("third"));
+    }
+
+    @Test
+    public void processedMessage_GivenExpiredEntry_ShouldReturnFalse() {
+        cache.messageProcessed("first");
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(61));
+
+        Assertions.assertFalse(cache.processedMessage("first"));
+    }
+}
@@ -1,8 +1,11 @@
 package com.devoxx;
 
+import com.amazonaws.services.lambda.runtime.events.SQSBatchResponse;
 import com.amazonaws.services.lambda.runtime.events.SQSEvent;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -13,25 +16,34 @@ import org.testcontainers.junit.jupiter.Testcontainers;
 import org.testcontainers.utility.DockerImageName;
 import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
 import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.core.sync.RequestBody;
 import software.amazon.awssdk.regions.Region;
 import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
 import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
 import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.sqs.SqsClient;
+import software.amazon.awssdk.services.sqs.model.QueueAttributeName;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchRequestEntry;
 import software.amazon.awssdk.services.sqs.model.SendMessageRequest;
 
+import java.io.ByteArrayOutputStream;
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.zip.GZIPOutputStream;
 
 import static org.awaitility.Awaitility.await;
 
 @Testcontainers
 class IntegrationTest {
 
+    private static final Logger LOGGER = LogManager.getLogger(IntegrationTest.class);
     private static SqsClient sqs;
     private static DynamoDbClient dynamoDb;
+    private static S3Client s3;
     private static String queueUrl;
     @Container
     static LocalStackContainer localstack = new LocalStackContainer(DockerImageName.parse("localstack/localstack:4.1.0"))
@@ -58,6 +70,18 @@ class IntegrationTest {
                 .build();
         String queueName = "ItemQueue";
         sqs.createQueue(b -> b.queueName(queueName));
+        s3 = S3Client.builder()
+                .endpointOverride(localstack.getEndpointOverride(LocalStackContainer.Service.S3))
+                .forcePathStyle(true)
+                .region(Region.of("eu-central-1"))
+                .credentialsProvider(StaticCredentialsProvider.create(
+                        AwsBasicCredentials.create(localstack.getAccessKey(), localstack.getSecretKey())))
+                .build();
+        // The container is shared by all tests of the class
+        if (dynamoDb.listTables().tableNames().contains("Items")) {
+            queueUrl = sqs.getQueueUrl(b -> b.queueName(queueName)).queueUrl();
+            return;
+        }
         dynamoDb.createTable(b -> b.tableName("Items")
                 .attributeDefinitions(
                         a -> a.attributeName("companyId").attributeType("S"),
@@ -122,4 +146,75 @@ class IntegrationTest {
                     Assertions.assertFalse(response.item().isEmpty());
                 });
     }
+
+    @Test
+    public void shouldImportGzipNdjsonObjectReferencedByClaimCheck() throws Exception {
+        String companyId = "devoxx-" + UUID.randomUUID();
+        String bucket = "imports-" + UUID.randomUUID();
+        s3.createBucket(b -> b.bucket(bucket));
+        ByteArrayOutputStream object = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(object)) {
+            for (int i = 0; i < 1200; i++) {
+                gzip.write(ItemJson.WRITER.writeValueAsBytes(new Item("uuid-" + i, companyId, "Laptop", 1.0, i)));
+                gzip.write('\n');
+            }
+        }
+        s3.putObject(b -> b.bucket(bucket).key("items.ndjson.gz"), RequestBody.fromBytes(object.toByteArray()));
+
+        SQSEvent.SQSMessage claimCheck = new SQSEvent.SQSMessage();
+        claimCheck.setMessageId("claim-check");
+        claimCheck.setBody("{\"bucket\":\"" + bucket + "\",\"key\":\"items.ndjson.gz\"}");
+        SQSEvent.MessageAttribute contentType = new SQSEvent.MessageAttribute();
+        contentType.setStringValue(ClaimCheckProcessor.CONTENT_TYPE);
+        contentType.setDataType("String");
+        claimCheck.setMessageAttributes(Map.of(ItemMessage.CONTENT_TYPE_ATTRIBUTE, contentType));
+        SQSEvent sqsEvent = new SQSEvent();
+        sqsEvent.setRecords(List.of(claimCheck));
+
+        SQSBatchResponse response = new DevoxxLambda().handleRequest(sqsEvent, null);
+
+        Assertions.assertTrue(response.getBatchItemFailures().isEmpty());
+        var stored = dynamoDb.query(b -> b.tableName("Items")
+                .keyConditionExpression("companyId = :companyId")
+                .expressionAttributeValues(Map.of(":companyId", AttributeValue.fromS(companyId)))
+                .select("COUNT"));
+        Assertions.assertEquals(1200, stored.count());
+    }
+
+    @Test
+    public void shouldDrainQueueWithSqsWorker() throws Exception {
+        String companyId = "devoxx-" + UUID.randomUUID();
+        String workerQueueUrl = sqs.createQueue(b -> b.queueName("WorkerQueue-" + UUID.randomUUID())).queueUrl();
+        int messages = 500;
+        for (int i = 0; i < messages; i += 10) {
+            List<SendMessageBatchRequestEntry> entries = new ArrayList<>();
+            for (int j = i; j < i + 10; j++) {
+                entries.add(SendMessageBatchRequestEntry.builder()
+                        .id(String.valueOf(j))
+                        .messageBody(ItemJson.WRITER.writeValueAsString(new Item("uuid-" + j, companyId, "Laptop", 1.0, j)))
+                        .build());
+            }
+            sqs.sendMessageBatch(b -> b.queueUrl(workerQueueUrl).entries(entries));
+        }
+
+        long start = System.nanoTime();
+        try (SqsWorker worker = new SqsWorker(AwsSdkClientUtil.createSqsClient(), workerQueueUrl,
+                new ItemProcessor(dynamoDb, false), 4, 8, 30)) {
+            worker.start();
+            await().atMost(Duration.ofSeconds(60)).until(() -> worker.processedMessages() == messages);
+        }
+        // Throughput against LocalStack, only comparable between runs on the same machine
+        LOGGER.info("SqsWorker processed {} messages in {} ms", messages, (System.nanoTime() - start) / 1_000_000);
+
+        var stored = dynamoDb.query(b -> b.tableName("Items")
+                .keyConditionExpression("companyId = :companyId")
+                .expressionAttributeValues(Map.of(":companyId", AttributeValue.fromS(companyId)))
+                .select("COUNT"));
+        Assertions.assertEquals(messages, stored.count());
+        var attributes = sqs.getQueueAttributes(b -> b.queueUrl(workerQueueUrl)
+                .attributeNames(QueueAttributeName.APPROXIMATE_NUMBER_OF_MESSAGES,
+                        QueueAttributeName.APPROXIMATE_NUMBER_OF_MESSAGES_NOT_VISIBLE)).attributes();
+        Assertions.assertEquals("0", attributes.get(QueueAttributeName.APPROXIMATE_NUMBER_OF_MESSAGES));
+        Assertions.assertEquals("0", attributes.get(QueueAttributeName.APPROXIMATE_NUMBER_OF_MESSAGES_NOT_VISIBLE));
+    }
 }
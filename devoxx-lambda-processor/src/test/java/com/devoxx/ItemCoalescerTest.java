@@ -0,0 +1,32 @@
+package com.devoxx;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+class ItemCoalescerTest {
+
+    @Test
+    public void coalesce_GivenEqualTimestamps_ShouldKeepLastItemPerKey() {
+        Item first = new Item("1", "devoxx", "First", 1.0, 1);
+        Item other = new Item("2", "devoxx", "Other", 1.0, 1);
+        Item last = new Item("1", "devoxx", "Last", 1.0, 1);
+
+        List<Item> latest = ItemCoalescer.coalesce(List.of(first, other, last), item -> 0);
+
+        Assertions.assertEquals(List.of(last, other), latest);
+    }
+
+    @Test
+    public void coalesce_GivenOlderItemLaterInBatch_ShouldKeepNewestSentItem() {
+        Item newer = new Item("1", "devoxx", "Newer", 1.0, 1);
+        Item older = new Item("1", "devoxx", "Older", 1.0, 1);
+        Map<Item, Long> sentTimestamps = Map.of(newer, 2000L, older, 1000L);
+
+        List<Item> latest = ItemCoalescer.coalesce(List.of(newer, older), sentTimestamps::get);
+
+        Assertions.assertEquals(List.of(newer), latest);
+    }
+}
@@ -0,0 +1,50 @@
+package com.devoxx;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.io.IOException;
+import java.util.List;
+
+class ItemEncoderTest {
+
+    private final List<Item> items = List.of(
+            new Item("uuid-1", "devoxx", "Laptop", 1299.99, 1),
+            new Item("uuid-2", "devoxx", "Monitor", 349.5, 2));
+
+    @ParameterizedTest
+    @EnumSource(ItemContentType.class)
+    public void decode_GivenEncodedBody_ShouldReturnAllItems(ItemContentType contentType) throws Exception {
+        String body = ItemEncoder.encodeBody(items, contentType);
+
+        List<Item> decoded = ItemBodyDecoder.decode(new ItemMessage("id", body, contentType.mimeType(), null));
+
+        assertSameItems(decoded);
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = ItemContentType.class, names = {"SMILE", "CBOR"})
+    public void decode_GivenPayloadAttribute_ShouldIgnoreBody(ItemContentType contentType) throws Exception {
+        byte[] payload = ItemEncoder.encode(items, contentType);
+
+        List<Item> decoded = ItemBodyDecoder.decode(new ItemMessage("id", "-", contentType.mimeType(), payload));
+
+        assertSameItems(decoded);
+        Assertions.assertTrue(payload.length < ItemEncoder.encode(items, ItemContentType.JSON).length);
+    }
+
+    @Test
+    public void decode_GivenUnknownContentType_ShouldFail() {
+        Assertions.assertThrows(IOException.class,
+                () -> ItemBodyDecoder.decode(new ItemMessage("id", "{}", "application/xml", null)));
+    }
+
+    private void assertSameItems(List<Item> decoded) {
+        Assertions.assertEquals(items.size(), decoded.size());
+        for (int i = 0; i < items.size(); i++) {
+            Assertions.assertEquals(items.get(i).toString(), decoded.get(i).toString());
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.devoxx;
+
+import com.amazonaws.services.lambda.runtime.events.SQSEvent;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemResponse;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+class ItemMetricsTest {
+
+    private final ByteArrayOutputStream stdout = new ByteArrayOutputStream();
+    private PrintStream originalOut;
+
+    @BeforeEach
+    public void captureStdout() {
+        originalOut = System.out;
+        System.setOut(new PrintStream(stdout, true, StandardCharsets.UTF_8));
+    }
+
+    @AfterEach
+    public void restoreStdout() {
+        System.setOut(originalOut);
+    }
+
+    @Test
+    public void flush_GivenRecordedValues_ShouldPrintEmfDocument() throws Exception {
+        ItemMetrics metrics = new ItemMetrics();
+        metrics.batchSize(10);
+        metrics.parseTime(1_500_000);
+        metrics.writeLatency(3_000_000);
+        metrics.writeLatency(4_000_000);
+        metrics.writeLatency(30_000_000);
+        metrics.retry();
+        metrics.unprocessedItems(2);
+        metrics.failedRecords(1);
+
+        metrics.flush();
+
+        JsonNode emf = emfLines().get(0);
+        JsonNode directive = emf.get("_aws").get("CloudWatchMetrics").get(0);
+        Assertions.assertEquals("DevoxxLambda", directive.get("Namespace").asText());
+        Assertions.assertEquals(17, directive.get("Metrics").size());
+        Assertions.assertEquals(10, emf.get("BatchSize").asInt());
+        Assertions.assertEquals(1.5, emf.get("ParseTime").asDouble());
+        Assertions.assertEquals("[5,50]", emf.get("WriteLatency").get("Values").toString());
+        Assertions.assertEquals("[2,1]", emf.get("WriteLatency").get("Counts").toString());
+        Assertions.assertEquals(30.0, emf.get("WriteLatency").get("Max").asDouble());
+        Assertions.assertEquals(1, emf.get("Retries").asInt());
+        Assertions.assertEquals(2, emf.get("UnprocessedItems").asInt());
+        Assertions.assertEquals(1, emf.get("FailedRecords").asInt());
+        Assertions.assertEquals(1, emf.get("ColdStart").asInt());
+    }
+
+    @Test
+    public void flush_GivenSecondFlush_ShouldResetAndReportWarmStart() throws Exception {
+        ItemMetrics metrics = new ItemMetrics();
+        metrics.writeLatency(3_000_000);
+        metrics.flush();
+
+        metrics.flush();
+
+        JsonNode emf = emfLines().get(1);
+        Assertions.assertEquals(0, emf.get("ColdStart").asInt());
+        Assertions.assertEquals(0, emf.get("WriteCalls").asInt());
+        Assertions.assertTrue(emf.get("WriteLatency").get("Values").isEmpty());
+    }
+
+    @Test
+    public void flush_GivenConcurrentRecording_ShouldReportEveryValueOnce() throws Exception {
+        ItemMetrics metrics = new ItemMetrics();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> writers = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                writers.add(executor.submit(() -> {
+                    for (int j = 0; j < 10_000; j++) {
+                        metrics.items(1);
+                        metrics.writeLatency(1_000_000);
+                    }
+                }));
+            }
+            while (!writers.stream().allMatch(Future::isDone)) {
+                metrics.flush();
+            }
+            for (Future<?> writer : writers) {
+                writer.get(5, TimeUnit.SECONDS);
+            }
+            metrics.flush();
+        } finally {
+            executor.shutdownNow();
+        }
+
+        long items = 0;
+        long writeCalls = 0;
+        for (JsonNode emf : emfLines()) {
+            items += emf.get("Items").asLong();
+            writeCalls += emf.get("WriteCalls").asLong();
+        }
+        Assertions.assertEquals(40_000, items);
+        Assertions.assertEquals(40_000, writeCalls);
+    }
+
+    @Test
+    public void handleRequest_ShouldFlushOneEmfLinePerInvocation() throws Exception {
+        DynamoDbClient dynamoDbClient = Mockito.mock(DynamoDbClient.class);
+        when(dynamoDbClient.batchWriteItem(any(BatchWriteItemRequest.class)))
+                .thenReturn(BatchWriteItemResponse.builder().build());
+        DevoxxLambda devoxxLambda = new DevoxxLambda(dynamoDbClient);
+        SQSEvent sqsEvent = new SQSEvent();
+        sqsEvent.setRecords(List.of(
+                UnitTest.message("valid", "{\"uuid\":\"1\",\"companyId\":\"devoxx\",\"name\":\"Laptop\",\"price\":1.0,\"quantity\":1}"),
+                UnitTest.message("invalid", "not json")
+        ));
+
+        devoxxLambda.handleRequest(sqsEvent, null);
+
+        List<JsonNode> emfLines = emfLines();
+        Assertions.assertEquals(1, emfLines.size());
+        Assertions.assertEquals(2, emfLines.get(0).get("BatchSize").asInt());
+        Assertions.assertEquals(1, emfLines.get(0).get("WriteCalls").asInt());
+        Assertions.assertEquals(1, emfLines.get(0).get("FailedRecords").asInt());
+    }
+
+    private List<JsonNode> emfLines() throws Exception {
+        List<JsonNode> lines = new ArrayList<>();
+        for (String line : Arrays.asList(stdout.toString(StandardCharsets.UTF_8).split("\n"))) {
+            if (line.startsWith("{\"_aws\"")) {
+                lines.add(ItemJson.MAPPER.readTree(line));
+            }
+        }
+        return lines;
+    }
+}
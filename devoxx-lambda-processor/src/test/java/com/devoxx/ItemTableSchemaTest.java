@@ -0,0 +1,35 @@
+package com.devoxx;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.enhanced.dynamodb.TableMetadata;
+import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.Map;
+
+class ItemTableSchemaTest {
+
+    private final TableSchema<Item> beanSchema = TableSchema.fromBean(Item.class);
+
+    @Test
+    public void staticSchema_ShouldMapLikeBeanSchema() {
+        Item item = new Item("a955ae76", "devoxx", "Monitor", 999.99, 1);
+
+        Map<String, AttributeValue> staticMap = ItemTableSchema.INSTANCE.itemToMap(item, true);
+
+        Assertions.assertEquals(beanSchema.itemToMap(item, true), staticMap);
+        Assertions.assertEquals(item.toString(), beanSchema.mapToItem(staticMap).toString());
+        Assertions.assertEquals(item.toString(), ItemTableSchema.INSTANCE.mapToItem(staticMap).toString());
+    }
+
+    @Test
+    public void staticSchema_ShouldHaveSameKeysAsBeanSchema() {
+        TableMetadata staticMetadata = ItemTableSchema.INSTANCE.tableMetadata();
+        TableMetadata beanMetadata = beanSchema.tableMetadata();
+
+        Assertions.assertEquals(beanMetadata.primaryPartitionKey(), staticMetadata.primaryPartitionKey());
+        Assertions.assertEquals(beanMetadata.primarySortKey(), staticMetadata.primarySortKey());
+        Assertions.assertEquals(beanSchema.attributeNames().size(), ItemTableSchema.INSTANCE.attributeNames().size());
+    }
+}
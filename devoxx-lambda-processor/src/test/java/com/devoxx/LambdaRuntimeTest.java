@@ -0,0 +1,135 @@
+package com.devoxx;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemResponse;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+// Runs the bootstrap loop against a stub of the Lambda Runtime API. No Mockito, so it also runs as a
+// native test (mvn -Pnative test)
+class LambdaRuntimeTest {
+
+    private HttpServer runtimeApi;
+    private final Deque<byte[]> events = new ArrayDeque<>();
+    private final Map<String, String> responses = new ConcurrentHashMap<>();
+    private final Map<String, String> errors = new ConcurrentHashMap<>();
+    private final List<BatchWriteItemRequest> writes = new ArrayList<>();
+    private DynamoDbClient dynamoDbClient;
+
+    @BeforeEach
+    public void setup() throws IOException {
+        System.setProperty("aws.region", "eu-central-1");
+        System.setProperty("aws.accessKeyId", "test");
+        System.setProperty("aws.secretAccessKey", "test");
+        dynamoDbClient = new DynamoDbClient() {
+            @Override
+            public BatchWriteItemResponse batchWriteItem(BatchWriteItemRequest request) {
+                writes.add(request);
+                return BatchWriteItemResponse.builder().build();
+            }
+
+            @Override
+            public String serviceName() {
+                return SERVICE_NAME;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+
+        runtimeApi = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        runtimeApi.createContext("/2018-06-01/runtime/invocation/", exchange -> {
+            String path = exchange.getRequestURI().getPath();
+            byte[] body;
+            try (InputStream request = exchange.getRequestBody()) {
+                body = request.readAllBytes();
+            }
+            if (path.endsWith("/next")) {
+                byte[] event = events.poll();
+                exchange.getResponseHeaders().add("Lambda-Runtime-Aws-Request-Id", "request-" + events.size());
+                exchange.getResponseHeaders().add("Lambda-Runtime-Deadline-Ms", String.valueOf(System.currentTimeMillis() + 30_000));
+                exchange.getResponseHeaders().add("Lambda-Runtime-Invoked-Function-Arn", "arn:aws:lambda:eu-central-1:000000000000:function:DevoxxLambda");
+                exchange.sendResponseHeaders(200, event.length);
+                try (OutputStream response = exchange.getResponseBody()) {
+                    response.write(event);
+                }
+                return;
+            }
+            String requestId = path.split("/")[4];
+            (path.endsWith("/error") ? errors : responses).put(requestId, new String(body, StandardCharsets.UTF_8));
+            exchange.sendResponseHeaders(202, -1);
+            exchange.close();
+        });
+        runtimeApi.start();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        runtimeApi.stop(0);
+    }
+
+    @Test
+    public void invokeNext_GivenUnitTestEvents_ShouldPostResponsesWithoutFailures() throws Exception {
+        try (Stream<Path> files = Files.list(Path.of("src/test/resources/events"))) {
+            for (Path file : files.sorted().toList()) {
+                events.add(Files.readAllBytes(file));
+            }
+        }
+        int invocations = events.size();
+        LambdaRuntime runtime = runtime(LambdaRuntime.invoker(new DevoxxLambda(dynamoDbClient)));
+
+        for (int i = 0; i < invocations; i++) {
+            runtime.invokeNext();
+        }
+
+        Assertions.assertEquals(invocations, responses.size());
+        responses.values().forEach(response -> Assertions.assertEquals("{\"batchItemFailures\":[]}", response));
+        Assertions.assertTrue(errors.isEmpty());
+        Assertions.assertFalse(writes.isEmpty());
+    }
+
+    @Test
+    public void invokeNext_GivenFailingHandler_ShouldPostError() throws Exception {
+        events.add("{}".getBytes(StandardCharsets.UTF_8));
+        LambdaRuntime runtime = runtime((event, context) -> {
+            throw new IllegalStateException("broken");
+        });
+
+        runtime.invokeNext();
+
+        Assertions.assertTrue(responses.isEmpty());
+        Assertions.assertEquals("{\"errorMessage\":\"broken\",\"errorType\":\"java.lang.IllegalStateException\"}",
+                errors.get("request-0"));
+    }
+
+    @Test
+    public void invoker_GivenUnknownHandler_ShouldFail() {
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> LambdaRuntime.invoker("com.example.OtherLambda::handleRequest"));
+    }
+
+    private LambdaRuntime runtime(LambdaRuntime.Invoker invoker) {
+        return new LambdaRuntime("http://localhost:" + runtimeApi.getAddress().getPort() + "/2018-06-01/runtime", invoker);
+    }
+}
@@ -0,0 +1,85 @@
+package com.devoxx;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+class ReadCacheTest {
+
+    private final AtomicLong clock = new AtomicLong();
+    private final ReadMetrics metrics = new ReadMetrics();
+    private final ReadCache<String, String> cache = new ReadCache<>(2, 5, clock::get, metrics);
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    public void get_GivenCachedKey_ShouldLoadOnceUntilExpired() {
+        Assertions.assertEquals("first", cache.get("first", this::load));
+        Assertions.assertEquals("first", cache.get("first", this::load));
+        Assertions.assertEquals(1, loads.get());
+        Assertions.assertEquals(50.0, metrics.hitRatio());
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(6));
+        cache.get("first", this::load);
+
+        Assertions.assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void get_GivenMoreKeysThanCapacity_ShouldEvictLeastRecentlyUsed() {
+        cache.get("first", this::load);
+        cache.get("second", this::load);
+        cache.get("first", this::load);
+
+        cache.get("third", this::load);
+        cache.get("first", this::load);
+        cache.get("second", this::load);
+
+        // first stayed, second was evicted and loaded again
+        Assertions.assertEquals(4, loads.get());
+    }
+
+    @Test
+    public void get_GivenMissingKey_ShouldCacheNull() {
+        Assertions.assertNull(cache.get("missing", key -> {
+            loads.incrementAndGet();
+            return null;
+        }));
+        Assertions.assertNull(cache.get("missing", this::load));
+
+        Assertions.assertEquals(1, loads.get());
+    }
+
+    @Test
+    public void get_GivenFailedLoad_ShouldNotCacheIt() {
+        Assertions.assertThrows(IllegalStateException.class, () -> cache.get("key", key -> {
+            throw new IllegalStateException("unavailable");
+        }));
+
+        Assertions.assertEquals("key", cache.get("key", this::load));
+    }
+
+    @Test
+    public void format_ShouldComputeTheRatioFromTheTakenCounts() {
+        String line = ReadMetrics.format(0, 3, 1);
+
+        Assertions.assertTrue(line.contains("\"CacheHits\":3,\"CacheMisses\":1,\"CacheHitRatio\":75.0}"));
+    }
+
+    @Test
+    public void flush_ShouldStartTheNextInvocationFromZero() {
+        cache.get("key", this::load);
+        cache.get("key", this::load);
+
+        metrics.flush();
+
+        Assertions.assertEquals(0.0, metrics.hitRatio());
+    }
+
+    private String load(String key) {
+        loads.incrementAndGet();
+        return key;
+    }
+}
@@ -0,0 +1,139 @@
+package com.devoxx;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import software.amazon.awssdk.core.SdkBytes;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemResponse;
+import software.amazon.awssdk.services.sqs.SqsClient;
+import software.amazon.awssdk.services.sqs.model.ChangeMessageVisibilityBatchRequest;
+import software.amazon.awssdk.services.sqs.model.ChangeMessageVisibilityBatchResponse;
+import software.amazon.awssdk.services.sqs.model.DeleteMessageBatchRequest;
+import software.amazon.awssdk.services.sqs.model.DeleteMessageBatchResponse;
+import software.amazon.awssdk.services.sqs.model.Message;
+import software.amazon.awssdk.services.sqs.model.MessageAttributeValue;
+import software.amazon.awssdk.services.sqs.model.ReceiveMessageRequest;
+import software.amazon.awssdk.services.sqs.model.ReceiveMessageResponse;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SqsWorkerTest {
+
+    private static final String QUEUE_URL = "http://localhost/queue/ItemQueue";
+
+    private SqsClient sqsClient;
+    private DynamoDbClient dynamoDbClient;
+    private SqsWorker worker;
+
+    @BeforeEach
+    public void setup() {
+        System.setProperty("aws.region", "eu-central-1");
+        System.setProperty("aws.accessKeyId", "test");
+        System.setProperty("aws.secretAccessKey", "test");
+        sqsClient = Mockito.mock(SqsClient.class);
+        when(sqsClient.deleteMessageBatch(any(DeleteMessageBatchRequest.class)))
+                .thenReturn(DeleteMessageBatchResponse.builder().build());
+        when(sqsClient.changeMessageVisibilityBatch(any(ChangeMessageVisibilityBatchRequest.class)))
+                .thenReturn(ChangeMessageVisibilityBatchResponse.builder().build());
+        dynamoDbClient = Mockito.mock(DynamoDbClient.class);
+        when(dynamoDbClient.batchWriteItem(any(BatchWriteItemRequest.class)))
+                .thenReturn(BatchWriteItemResponse.builder().build());
+        worker = new SqsWorker(sqsClient, QUEUE_URL, new ItemProcessor(dynamoDbClient, false), 1, 2, 2);
+    }
+
+    @Test
+    public void process_GivenInvalidBody_ShouldDeleteOnlyProcessedMessages() {
+        worker.process(List.of(message("valid", item("1")), message("invalid", "not json")));
+
+        verify(sqsClient).deleteMessageBatch(argThat((DeleteMessageBatchRequest request) ->
+                request.entries().size() == 1 && request.entries().get(0).receiptHandle().equals("receipt-valid")));
+        Assertions.assertEquals(1, worker.processedMessages());
+        Assertions.assertEquals(1, worker.failedMessages());
+    }
+
+    @Test
+    public void toMessage_GivenAttributes_ShouldMapContentTypePayloadAndSentTimestamp() {
+        Message message = Message.builder()
+                .messageId("binary")
+                .body("-")
+                .attributesWithStrings(Map.of(ItemMessage.SENT_TIMESTAMP_ATTRIBUTE, "1700000000000"))
+                .messageAttributes(Map.of(
+                        ItemMessage.CONTENT_TYPE_ATTRIBUTE, MessageAttributeValue.builder()
+                                .dataType("String").stringValue("application/x-jackson-smile").build(),
+                        ItemMessage.PAYLOAD_ATTRIBUTE, MessageAttributeValue.builder()
+                                .dataType("Binary").binaryValue(SdkBytes.fromByteArray(new byte[]{1, 2})).build()))
+                .build();
+
+        ItemMessage itemMessage = SqsWorker.toMessage(message);
+
+        Assertions.assertEquals("binary", itemMessage.messageId());
+        Assertions.assertEquals("application/x-jackson-smile", itemMessage.contentType());
+        Assertions.assertArrayEquals(new byte[]{1, 2}, itemMessage.payload());
+        Assertions.assertEquals(1700000000000L, itemMessage.sentTimestamp());
+    }
+
+    @Test
+    public void process_GivenSlowBatch_ShouldExtendVisibility() {
+        when(dynamoDbClient.batchWriteItem(any(BatchWriteItemRequest.class))).thenAnswer(invocation -> {
+            Thread.sleep(1500);
+            return BatchWriteItemResponse.builder().build();
+        });
+        receiveOnce(List.of(message("slow", item("1"))));
+
+        worker.start();
+        await().atMost(Duration.ofSeconds(5)).until(() -> worker.processedMessages() == 1);
+        worker.close();
+
+        verify(sqsClient, atLeastOnce()).changeMessageVisibilityBatch(argThat((ChangeMessageVisibilityBatchRequest request) ->
+                request.entries().get(0).receiptHandle().equals("receipt-slow")
+                        && request.entries().get(0).visibilityTimeout() == 2));
+    }
+
+    @Test
+    public void start_GivenMessages_ShouldLongPollProcessAndStopGracefully() {
+        receiveOnce(List.of(message("1", item("1")), message("2", item("2"))));
+
+        worker.start();
+        await().atMost(Duration.ofSeconds(5)).until(() -> worker.processedMessages() == 2);
+        worker.close();
+
+        verify(sqsClient, atLeastOnce()).receiveMessage(argThat((ReceiveMessageRequest request) ->
+                request.waitTimeSeconds() == 20 && request.maxNumberOfMessages() == 10
+                        && request.messageAttributeNames().contains(ItemMessage.CONTENT_TYPE_ATTRIBUTE)));
+        verify(sqsClient).deleteMessageBatch(argThat((DeleteMessageBatchRequest request) -> request.entries().size() == 2));
+        Assertions.assertEquals(0, worker.failedMessages());
+    }
+
+    // Hands out the messages on the first receive, later receives come back empty like an idle long poll
+    private void receiveOnce(List<Message> messages) {
+        AtomicBoolean received = new AtomicBoolean();
+        when(sqsClient.receiveMessage(any(ReceiveMessageRequest.class))).thenAnswer(invocation -> {
+            if (received.compareAndSet(false, true)) {
+                return ReceiveMessageResponse.builder().messages(messages).build();
+            }
+            Thread.sleep(50);
+            return ReceiveMessageResponse.builder().build();
+        });
+    }
+
+    private static Message message(String id, String body) {
+        return Message.builder().messageId(id).receiptHandle("receipt-" + id).body(body).build();
+    }
+
+    private static String item(String uuid) {
+        return "{\"uuid\":\"" + uuid + "\",\"companyId\":\"devoxx\",\"name\":\"Laptop\",\"price\":1.0,\"quantity\":1}";
+    }
+}
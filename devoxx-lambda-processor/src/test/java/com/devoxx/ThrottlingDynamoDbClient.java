@@ -0,0 +1,122 @@
+package com.devoxx;
+
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.CancellationReason;
+import software.amazon.awssdk.services.dynamodb.model.ProvisionedThroughputExceededException;
+import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.PutItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItem;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItemsRequest;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItemsResponse;
+import software.amazon.awssdk.services.dynamodb.model.TransactionCanceledException;
+import software.amazon.awssdk.services.dynamodb.model.WriteRequest;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// DynamoDB stand-in with too little write capacity: the first write calls are rejected with
+// ProvisionedThroughputExceededException, or cancelled for throttling when they are transactions. Afterwards every
+// BatchWriteItem takes only a few items and returns the rest unprocessed, puts and transactions go through whole.
+class ThrottlingDynamoDbClient implements DynamoDbClient {
+
+    private final int acceptedPerCall;
+    private int rejectedCalls;
+    private final Map<String, Map<String, AttributeValue>> written = new HashMap<>();
+    private int updates;
+
+    ThrottlingDynamoDbClient(int rejectedCalls, int acceptedPerCall) {
+        this.rejectedCalls = rejectedCalls;
+        this.acceptedPerCall = acceptedPerCall;
+    }
+
+    @Override
+    public synchronized BatchWriteItemResponse batchWriteItem(BatchWriteItemRequest request) {
+        reject();
+        Map<String, List<WriteRequest>> unprocessed = new HashMap<>();
+        request.requestItems().forEach((table, requests) -> {
+            for (int i = 0; i < requests.size(); i++) {
+                if (i < acceptedPerCall) {
+                    store(requests.get(i).putRequest().item());
+                } else {
+                    unprocessed.computeIfAbsent(table, k -> new ArrayList<>()).add(requests.get(i));
+                }
+            }
+        });
+        return BatchWriteItemResponse.builder().unprocessedItems(unprocessed).build();
+    }
+
+    @Override
+    public synchronized PutItemResponse putItem(PutItemRequest request) {
+        reject();
+        store(request.item());
+        return PutItemResponse.builder().build();
+    }
+
+    @Override
+    public synchronized TransactWriteItemsResponse transactWriteItems(TransactWriteItemsRequest request) {
+        if (rejectedCalls > 0) {
+            rejectedCalls--;
+            List<CancellationReason> reasons = new ArrayList<>();
+            request.transactItems().forEach(action -> reasons.add(CancellationReason.builder()
+                    .code("ProvisionedThroughputExceeded").build()));
+            throw TransactionCanceledException.builder().message("Transaction cancelled")
+                    .cancellationReasons(reasons).build();
+        }
+        for (TransactWriteItem action : request.transactItems()) {
+            if (action.put() != null) {
+                store(action.put().item());
+            } else if (action.update() != null) {
+                updates++;
+            }
+        }
+        return TransactWriteItemsResponse.builder().build();
+    }
+
+    // Reads are never throttled, they return what was written
+    @Override
+    public synchronized BatchGetItemResponse batchGetItem(BatchGetItemRequest request) {
+        Map<String, List<Map<String, AttributeValue>>> responses = new HashMap<>();
+        request.requestItems().forEach((table, keys) -> keys.keys().forEach(key -> {
+            Map<String, AttributeValue> item = written.get(key.get("companyId").s() + "#" + key.get("uuid").s());
+            if (item != null) {
+                responses.computeIfAbsent(table, k -> new ArrayList<>()).add(item);
+            }
+        }));
+        return BatchGetItemResponse.builder().responses(responses).build();
+    }
+
+    private void reject() {
+        if (rejectedCalls > 0) {
+            rejectedCalls--;
+            throw ProvisionedThroughputExceededException.builder().message("Throughput exceeds the current capacity").build();
+        }
+    }
+
+    private void store(Map<String, AttributeValue> item) {
+        written.put(item.get("companyId").s() + "#" + item.get("uuid").s(), item);
+    }
+
+    synchronized int updates() {
+        return updates;
+    }
+
+    synchronized int writtenItems() {
+        return written.size();
+    }
+
+    @Override
+    public String serviceName() {
+        return SERVICE_NAME;
+    }
+
+    @Override
+    public void close() {
+    }
+}
@@ -1,15 +1,30 @@
 package com.devoxx;
 
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.events.SQSBatchResponse;
 import com.amazonaws.services.lambda.runtime.events.SQSEvent;
 import com.amazonaws.services.lambda.runtime.tests.annotations.Events;
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
-import org.mockito.Mock;
+import org.mockito.Mockito;
 import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemResponse;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 class UnitTest {
 
-    @Mock
     private DynamoDbClient dynamoDbClient;
 
     private DevoxxLambda devoxxLambda;
@@ -19,15 +34,136 @@ class UnitTest {
         System.setProperty("aws.region", "eu-central-1");
         System.setProperty("aws.accessKeyId", "test");
         System.setProperty("aws.secretAccessKey", "test");
+        dynamoDbClient = Mockito.mock(DynamoDbClient.class);
+        when(dynamoDbClient.batchWriteItem(any(BatchWriteItemRequest.class)))
+                .thenReturn(BatchWriteItemResponse.builder().build());
         devoxxLambda = new DevoxxLambda(dynamoDbClient);
     }
 
     @ParameterizedTest
     @Events(folder = "events", type = SQSEvent.class)
-    public void handleRequest_GivenValidEvent_ShouldReturnNull(SQSEvent sqsEvent) {
-        String result = this.devoxxLambda.handleRequest(sqsEvent, null);
-        assert result == null;
+    public void handleRequest_GivenValidEvent_ShouldReportNoFailures(SQSEvent sqsEvent) {
+        SQSBatchResponse result = this.devoxxLambda.handleRequest(sqsEvent, null);
+        Assertions.assertTrue(result.getBatchItemFailures().isEmpty());
+    }
+
+    @Test
+    public void handleRequest_GivenInvalidBody_ShouldReportOnlyThatMessage() {
+        SQSEvent sqsEvent = new SQSEvent();
+        sqsEvent.setRecords(List.of(
+                message("valid", "{\"uuid\":\"1\",\"companyId\":\"devoxx\",\"name\":\"Laptop\",\"price\":1.0,\"quantity\":1}"),
+                message("invalid", "not json")
+        ));
+
+        SQSBatchResponse result = this.devoxxLambda.handleRequest(sqsEvent, null);
+
+        Assertions.assertEquals(1, result.getBatchItemFailures().size());
+        Assertions.assertEquals("invalid", result.getBatchItemFailures().get(0).getItemIdentifier());
+    }
+
+    @Test
+    public void handleRequest_GivenArrayAndNdjsonBodies_ShouldWriteAllItemsInOneBatch() {
+        SQSEvent sqsEvent = new SQSEvent();
+        sqsEvent.setRecords(List.of(
+                message("array", "[" + item("1") + "," + item("2") + "]"),
+                message("ndjson", item("3") + "\n" + item("4") + "\n" + item("5") + "\n")
+        ));
+
+        SQSBatchResponse result = this.devoxxLambda.handleRequest(sqsEvent, null);
+
+        Assertions.assertTrue(result.getBatchItemFailures().isEmpty());
+        verify(dynamoDbClient).batchWriteItem(argThat((BatchWriteItemRequest request) ->
+                request.requestItems().get("Items").size() == 5));
+    }
+
+    @Test
+    public void handleRequest_GivenPartlyInvalidNdjson_ShouldFailThatMessageWithoutWritingIt() {
+        SQSEvent sqsEvent = new SQSEvent();
+        sqsEvent.setRecords(List.of(
+                message("valid", item("1")),
+                message("invalid", item("2") + "\nnot json\n")
+        ));
+
+        SQSBatchResponse result = this.devoxxLambda.handleRequest(sqsEvent, null);
+
+        Assertions.assertEquals(1, result.getBatchItemFailures().size());
+        Assertions.assertEquals("invalid", result.getBatchItemFailures().get(0).getItemIdentifier());
+        verify(dynamoDbClient).batchWriteItem(argThat((BatchWriteItemRequest request) ->
+                request.requestItems().get("Items").size() == 1));
     }
 
+    @Test
+    public void prime_ShouldOnlyDeletePrimingKey() throws Exception {
+        this.devoxxLambda.prime();
+
+        verify(dynamoDbClient).batchWriteItem(argThat((BatchWriteItemRequest request) ->
+                request.requestItems().get("Items").stream().allMatch(w -> w.putRequest() == null)));
+    }
+
+    @Test
+    public void handleRequest_GivenNoTimeLeft_ShouldReportAllMessagesWithoutWriting() {
+        Context context = Mockito.mock(Context.class);
+        when(context.getRemainingTimeInMillis()).thenReturn(0);
+        SQSEvent sqsEvent = new SQSEvent();
+        sqsEvent.setRecords(List.of(message("first", item("1")), message("second", item("2"))));
+
+        SQSBatchResponse result = this.devoxxLambda.handleRequest(sqsEvent, context);
 
+        Assertions.assertEquals(2, result.getBatchItemFailures().size());
+        verify(dynamoDbClient, never()).batchWriteItem(any(BatchWriteItemRequest.class));
+    }
+
+    @Test
+    public void handleRequest_GivenRedeliveredMessage_ShouldNotWriteAgain() {
+        SQSEvent sqsEvent = new SQSEvent();
+        sqsEvent.setRecords(List.of(message("first", item("1"))));
+        this.devoxxLambda.handleRequest(sqsEvent, null);
+
+        SQSBatchResponse result = this.devoxxLambda.handleRequest(sqsEvent, null);
+
+        Assertions.assertTrue(result.getBatchItemFailures().isEmpty());
+        verify(dynamoDbClient, times(1)).batchWriteItem(any(BatchWriteItemRequest.class));
+    }
+
+    @Test
+    public void handleRequest_GivenIdenticalItemInNewMessage_ShouldOnlyWriteChangedItems() {
+        SQSEvent first = new SQSEvent();
+        first.setRecords(List.of(message("first", item("1"))));
+        this.devoxxLambda.handleRequest(first, null);
+        SQSEvent second = new SQSEvent();
+        second.setRecords(List.of(message("second", item("1")), message("third", item("2"))));
+
+        this.devoxxLambda.handleRequest(second, null);
+
+        verify(dynamoDbClient, times(2)).batchWriteItem(argThat((BatchWriteItemRequest request) ->
+                request.requestItems().get("Items").size() == 1));
+    }
+
+    @Test
+    public void handleRequest_GivenSameKeyTwice_ShouldWriteOnlyLatestSentItem() {
+        SQSEvent.SQSMessage newer = message("newer", "{\"uuid\":\"1\",\"companyId\":\"devoxx\",\"name\":\"Newer\",\"price\":1.0,\"quantity\":2}");
+        newer.setAttributes(Map.of("SentTimestamp", "2000"));
+        SQSEvent.SQSMessage older = message("older", item("1"));
+        older.setAttributes(Map.of("SentTimestamp", "1000"));
+        SQSEvent sqsEvent = new SQSEvent();
+        sqsEvent.setRecords(List.of(newer, older));
+
+        SQSBatchResponse result = this.devoxxLambda.handleRequest(sqsEvent, null);
+
+        Assertions.assertTrue(result.getBatchItemFailures().isEmpty());
+        verify(dynamoDbClient, times(1)).batchWriteItem(argThat((BatchWriteItemRequest request) ->
+                request.requestItems().get("Items").size() == 1
+                        && request.requestItems().get("Items").get(0).putRequest().item().get("name").s().equals("Newer")));
+    }
+
+    static String item(String uuid) {
+        return "{\"uuid\":\"" + uuid + "\",\"companyId\":\"devoxx\",\"name\":\"Laptop\",\"price\":1.0,\"quantity\":1}";
+    }
+
+    static SQSEvent.SQSMessage message(String messageId, String body) {
+        SQSEvent.SQSMessage message = new SQSEvent.SQSMessage();
+        message.setMessageId(messageId);
+        message.setBody(body);
+        return message;
+    }
 }
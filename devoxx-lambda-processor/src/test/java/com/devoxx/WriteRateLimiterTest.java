@@ -0,0 +1,68 @@
+package com.devoxx;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+class WriteRateLimiterTest {
+
+    private final AtomicLong clock = new AtomicLong();
+    private final WriteRateLimiter rateLimiter = new WriteRateLimiter(1000, 10, 50, clock::get);
+
+    @Test
+    public void onThrottle_ShouldHalveRateDownToMinimum() {
+        for (int i = 0; i < 10; i++) {
+            clock.addAndGet(TimeUnit.SECONDS.toNanos(1));
+            rateLimiter.onThrottle();
+        }
+
+        Assertions.assertEquals(10, rateLimiter.rate());
+    }
+
+    @Test
+    public void onThrottle_GivenThrottlesOfTheSameBurst_ShouldDecreaseOnce() {
+        rateLimiter.onThrottle();
+        rateLimiter.onThrottle();
+        rateLimiter.onThrottle();
+
+        Assertions.assertEquals(500, rateLimiter.rate());
+    }
+
+    @Test
+    public void onSuccess_ShouldIncreaseAdditivelyUpToMaximum() {
+        rateLimiter.onThrottle();
+
+        rateLimiter.onSuccess();
+        Assertions.assertEquals(550, rateLimiter.rate());
+
+        for (int i = 0; i < 100; i++) {
+            rateLimiter.onSuccess();
+        }
+        Assertions.assertEquals(1000, rateLimiter.rate());
+    }
+
+    @Test
+    public void reserve_GivenEmptyBucket_ShouldWaitForRefill() {
+        Assertions.assertEquals(0, rateLimiter.reserve(1000));
+
+        // 250 missing permits at 1000 permits/s
+        Assertions.assertEquals(TimeUnit.MILLISECONDS.toNanos(250), rateLimiter.reserve(250));
+
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(500));
+        Assertions.assertEquals(0, rateLimiter.reserve(250));
+    }
+
+    @Test
+    public void acquire_GivenWaitPastDeadline_ShouldRefuseWithoutTakingPermits() {
+        rateLimiter.reserve(1000);
+        Deadline deadline = new Deadline(TimeUnit.MILLISECONDS.toNanos(100), clock::get);
+
+        // 500 permits take 500 ms at 1000 permits/s
+        Assertions.assertEquals(WriteRateLimiter.Permit.PAST_DEADLINE, rateLimiter.acquire(500, deadline));
+
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(500));
+        Assertions.assertEquals(0, rateLimiter.reserve(500));
+    }
+}
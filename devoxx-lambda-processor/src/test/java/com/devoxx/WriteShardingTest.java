@@ -0,0 +1,144 @@
+package com.devoxx;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
+import software.amazon.awssdk.services.dynamodb.model.QueryResponse;
+import software.amazon.awssdk.services.dynamodb.paginators.QueryIterable;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class WriteShardingTest {
+
+    private final WriteSharding sharding = new WriteSharding(4);
+
+    @Test
+    public void partitionKey_GivenShardingDisabled_ShouldKeepCompanyId() {
+        Assertions.assertEquals("devoxx", new WriteSharding(1).partitionKey("devoxx", "uuid-1"));
+        Assertions.assertEquals(List.of("devoxx"), new WriteSharding(1).partitionKeys("devoxx"));
+    }
+
+    @Test
+    public void partitionKey_GivenManyUuids_ShouldSpreadOverAllShards() {
+        Set<String> keys = new HashSet<>();
+        for (int i = 0; i < 100; i++) {
+            String key = sharding.partitionKey("devoxx", "uuid-" + i);
+            Assertions.assertEquals(key, sharding.partitionKey("devoxx", "uuid-" + i));
+            keys.add(key);
+        }
+
+        Assertions.assertEquals(Set.of("devoxx#0", "devoxx#1", "devoxx#2", "devoxx#3"), keys);
+        Assertions.assertTrue(sharding.partitionKeys("devoxx").containsAll(keys));
+        Assertions.assertEquals("devoxx", sharding.partitionKeys("devoxx").get(0));
+    }
+
+    @Test
+    public void write_GivenSharding_ShouldStoreShardedPartitionKey() {
+        DynamoDbClient dynamoDbClient = Mockito.mock(DynamoDbClient.class);
+        when(dynamoDbClient.batchWriteItem(any(BatchWriteItemRequest.class)))
+                .thenReturn(BatchWriteItemResponse.builder().build());
+        DynamoDbEnhancedClient enhancedClient = DynamoDbEnhancedClient.builder().dynamoDbClient(dynamoDbClient).build();
+        ItemMetrics metrics = new ItemMetrics();
+        BatchItemWriter writer = new BatchItemWriter(enhancedClient, enhancedClient.table("Items", ItemTableSchema.INSTANCE),
+                Runnable::run, metrics, new WriteRateLimiter(), new HotPartitionDetector(metrics), sharding);
+        Item item = new Item("uuid-1", "devoxx", "Laptop", 1299.99, 1);
+
+        Assertions.assertTrue(writer.write(List.of(item)).isEmpty());
+
+        String expectedKey = sharding.partitionKey("devoxx", "uuid-1");
+        verify(dynamoDbClient).batchWriteItem(Mockito.argThat((BatchWriteItemRequest request) -> expectedKey.equals(
+                request.requestItems().get("Items").get(0).putRequest().item().get("companyId").s())));
+        Assertions.assertEquals("devoxx", item.getCompanyId());
+    }
+
+    @Test
+    public void queryCompany_ShouldMergeAllShardsAndLegacyItems() {
+        DynamoDbClient dynamoDbClient = Mockito.mock(DynamoDbClient.class);
+        when(dynamoDbClient.query(any(QueryRequest.class))).thenAnswer(invocation -> {
+            QueryRequest request = invocation.getArgument(0);
+            String partitionKey = request.expressionAttributeValues().values().iterator().next().s();
+            return switch (partitionKey) {
+                case "devoxx" -> response(stored("uuid-a", "devoxx", 1), stored("uuid-c", "devoxx", 1));
+                case "devoxx#1" -> response(stored("uuid-c", "devoxx#1", 2));
+                case "devoxx#3" -> response(stored("uuid-b", "devoxx#3", 1));
+                default -> response();
+            };
+        });
+        when(dynamoDbClient.queryPaginator(any(QueryRequest.class)))
+                .thenAnswer(invocation -> new QueryIterable(dynamoDbClient, invocation.getArgument(0)));
+        DynamoDbTable<Item> itemTable = DynamoDbEnhancedClient.builder().dynamoDbClient(dynamoDbClient).build()
+                .table("Items", ItemTableSchema.INSTANCE);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        ShardedItemReader reader = new ShardedItemReader(itemTable, sharding, executor);
+
+        try {
+            List<Item> items = reader.queryCompany("devoxx");
+
+            Assertions.assertEquals(List.of("uuid-a", "uuid-b", "uuid-c"), items.stream().map(Item::getUuid).toList());
+            Assertions.assertTrue(items.stream().allMatch(item -> "devoxx".equals(item.getCompanyId())));
+            Assertions.assertEquals(2, items.get(2).getQuantity());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void decode_GivenCompanyIdWithSeparator_ShouldRejectTheBody() {
+        Assertions.assertThrows(IOException.class, () -> ItemBodyDecoder.decode(
+                "{\"uuid\":\"uuid-1\",\"companyId\":\"devoxx#1\",\"name\":\"Laptop\",\"price\":1.0,\"quantity\":1}"));
+    }
+
+    @Test
+    public void decode_GivenCompanyIdOfAnInternalRecord_ShouldRejectTheBody() {
+        // Sharded it would be stored as "devoxx-aggregate#<shard>"/"aggregate", the aggregate of company "<shard>"
+        for (String companyId : List.of("devoxx-aggregate", "devoxx-claim-check", "devoxx-aggregates")) {
+            String body = "{\"uuid\":\"aggregate\",\"companyId\":\"" + companyId
+                    + "\",\"name\":\"Laptop\",\"price\":1.0,\"quantity\":1}";
+            Assertions.assertThrows(IOException.class, () -> ItemBodyDecoder.decode(body));
+        }
+        Assertions.assertFalse(WriteSharding.reservedCompanyId("devoxx"));
+    }
+
+    @Test
+    public void decode_GivenPrimingCompanyId_ShouldRejectTheBody() {
+        // Priming deletes devoxx-priming/devoxx-priming before every snapshot
+        Assertions.assertThrows(IOException.class, () -> ItemBodyDecoder.decode(ItemProcessor.PRIMING_BODY));
+    }
+
+    @Test
+    public void getItem_GivenCompanyIdWithSeparator_ShouldNotReadAnotherTenantsShard() {
+        DynamoDbClient dynamoDbClient = Mockito.mock(DynamoDbClient.class);
+        DynamoDbTable<Item> itemTable = DynamoDbEnhancedClient.builder().dynamoDbClient(dynamoDbClient).build()
+                .table("Items", ItemTableSchema.INSTANCE);
+        ShardedItemReader reader = new ShardedItemReader(itemTable, sharding, Runnable::run);
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> reader.getItem("devoxx#1", "uuid-1"));
+        Mockito.verifyNoInteractions(dynamoDbClient);
+    }
+
+    private static Map<String, AttributeValue> stored(String uuid, String partitionKey, int quantity) {
+        return ItemTableSchema.INSTANCE.itemToMap(new Item(uuid, partitionKey, "Laptop", 1299.99, quantity), true);
+    }
+
+    @SafeVarargs
+    private static QueryResponse response(Map<String, AttributeValue>... items) {
+        return QueryResponse.builder().items(items).build();
+    }
+}
@@ -0,0 +1,250 @@
+package com.devoxx;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// Generates <Bean>TableSchema with a StaticTableSchema for every @DynamoDbBean class.
+// The mapping follows the same annotations BeanTableSchema reads at runtime, but getters and setters
+// are plain method references, so no introspection or LambdaMetafactory work happens during Lambda init.
+@SupportedAnnotationTypes(StaticTableSchemaProcessor.DYNAMO_DB_BEAN)
+public class StaticTableSchemaProcessor extends AbstractProcessor {
+
+    private static final String ANNOTATIONS_PACKAGE = "software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.";
+    static final String DYNAMO_DB_BEAN = ANNOTATIONS_PACKAGE + "DynamoDbBean";
+    private static final String ATTRIBUTE = ANNOTATIONS_PACKAGE + "DynamoDbAttribute";
+    private static final String IGNORE = ANNOTATIONS_PACKAGE + "DynamoDbIgnore";
+    private static final String PARTITION_KEY = ANNOTATIONS_PACKAGE + "DynamoDbPartitionKey";
+    private static final String SORT_KEY = ANNOTATIONS_PACKAGE + "DynamoDbSortKey";
+    private static final String SECONDARY_PARTITION_KEY = ANNOTATIONS_PACKAGE + "DynamoDbSecondaryPartitionKey";
+    private static final String SECONDARY_SORT_KEY = ANNOTATIONS_PACKAGE + "DynamoDbSecondarySortKey";
+    private static final Set<String> SUPPORTED = Set.of(ATTRIBUTE, IGNORE, PARTITION_KEY, SORT_KEY,
+            SECONDARY_PARTITION_KEY, SECONDARY_SORT_KEY);
+    private static final String TAGS = "software.amazon.awssdk.enhanced.dynamodb.mapper.StaticAttributeTags";
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (TypeElement annotation : annotations) {
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                if (element instanceof TypeElement bean) {
+                    generate(bean);
+                }
+            }
+        }
+        return false;
+    }
+
+    private void generate(TypeElement bean) {
+        if (!bean.getModifiers().contains(Modifier.PUBLIC) || !hasPublicNoArgConstructor(bean)) {
+            error(bean, "@DynamoDbBean class must be public and have a public no-arg constructor");
+            return;
+        }
+        List<String> attributes = new ArrayList<>();
+        for (ExecutableElement getter : getters(bean)) {
+            Optional<ExecutableElement> setter = setter(bean, getter);
+            if (setter.isEmpty() || hasAnnotation(getter, setter.get(), IGNORE)) {
+                continue;
+            }
+            String attribute = attribute(bean, getter, setter.get());
+            if (attribute == null) {
+                return;
+            }
+            attributes.add(attribute);
+        }
+        write(bean, attributes);
+    }
+
+    private String attribute(TypeElement bean, ExecutableElement getter, ExecutableElement setter) {
+        for (ExecutableElement method : List.of(getter, setter)) {
+            for (AnnotationMirror mirror : method.getAnnotationMirrors()) {
+                String name = annotationName(mirror);
+                if (name.startsWith(ANNOTATIONS_PACKAGE) && !SUPPORTED.contains(name)) {
+                    error(method, "@" + name.substring(ANNOTATIONS_PACKAGE.length())
+                            + " is not supported by the static schema generator");
+                    return null;
+                }
+            }
+        }
+        String type = typeLiteral(getter.getReturnType());
+        if (type == null) {
+            error(getter, "Only plain and primitive attribute types are supported by the static schema generator");
+            return null;
+        }
+
+        String beanName = bean.getQualifiedName().toString();
+        String attributeName = annotationValue(getter, ATTRIBUTE, "value")
+                .or(() -> annotationValue(setter, ATTRIBUTE, "value"))
+                .map(value -> (String) value.getValue())
+                .orElse(propertyName(getter));
+
+        List<String> tags = new ArrayList<>();
+        if (hasAnnotation(getter, setter, PARTITION_KEY)) {
+            tags.add(TAGS + ".primaryPartitionKey()");
+        }
+        if (hasAnnotation(getter, setter, SORT_KEY)) {
+            tags.add(TAGS + ".primarySortKey()");
+        }
+        indexNames(getter, setter, SECONDARY_PARTITION_KEY).ifPresent(names -> tags.add(TAGS + ".secondaryPartitionKey(" + names + ")"));
+        indexNames(getter, setter, SECONDARY_SORT_KEY).ifPresent(names -> tags.add(TAGS + ".secondarySortKey(" + names + ")"));
+
+        StringBuilder attribute = new StringBuilder()
+                .append("            .addAttribute(").append(type).append(", a -> a.name(\"").append(attributeName).append("\")\n")
+                .append("                    .getter(").append(beanName).append("::").append(getter.getSimpleName()).append(")\n")
+                .append("                    .setter(").append(beanName).append("::").append(setter.getSimpleName()).append(")");
+        if (!tags.isEmpty()) {
+            attribute.append("\n                    .tags(").append(String.join(", ", tags)).append(")");
+        }
+        return attribute.append(")\n").toString();
+    }
+
+    private void write(TypeElement bean, List<String> attributes) {
+        String packageName = processingEnv.getElementUtils().getPackageOf(bean).getQualifiedName().toString();
+        String beanName = bean.getQualifiedName().toString();
+        String schemaName = bean.getSimpleName() + "TableSchema";
+
+        StringBuilder source = new StringBuilder();
+        if (!packageName.isEmpty()) {
+            source.append("package ").append(packageName).append(";\n\n");
+        }
+        source.append("// Generated by ").append(getClass().getName()).append(" from the annotations on ").append(beanName).append(", do not edit\n")
+                .append("@javax.annotation.processing.Generated(\"").append(getClass().getName()).append("\")\n")
+                .append("public final class ").append(schemaName).append(" {\n\n")
+                .append("    public static final software.amazon.awssdk.enhanced.dynamodb.mapper.StaticTableSchema<").append(beanName).append("> INSTANCE =\n")
+                .append("            software.amazon.awssdk.enhanced.dynamodb.mapper.StaticTableSchema.builder(").append(beanName).append(".class)\n")
+                .append("            .newItemSupplier(").append(beanName).append("::new)\n");
+        attributes.forEach(source::append);
+        source.append("            .build();\n\n")
+                .append("    private ").append(schemaName).append("() {\n")
+                .append("    }\n")
+                .append("}\n");
+
+        String qualifiedName = packageName.isEmpty() ? schemaName : packageName + "." + schemaName;
+        try (Writer writer = processingEnv.getFiler().createSourceFile(qualifiedName, bean).openWriter()) {
+            writer.write(source.toString());
+        } catch (IOException e) {
+            error(bean, "Could not write " + qualifiedName + ": " + e.getMessage());
+        }
+    }
+
+    private List<ExecutableElement> getters(TypeElement bean) {
+        return ElementFilter.methodsIn(processingEnv.getElementUtils().getAllMembers(bean)).stream()
+                .filter(method -> !isObjectMethod(method))
+                .filter(method -> method.getModifiers().contains(Modifier.PUBLIC) && !method.getModifiers().contains(Modifier.STATIC))
+                .filter(method -> method.getParameters().isEmpty() && method.getReturnType().getKind() != TypeKind.VOID)
+                .filter(method -> propertySuffix(method) != null)
+                .collect(Collectors.toList());
+    }
+
+    private Optional<ExecutableElement> setter(TypeElement bean, ExecutableElement getter) {
+        String setterName = "set" + propertySuffix(getter);
+        return ElementFilter.methodsIn(processingEnv.getElementUtils().getAllMembers(bean)).stream()
+                .filter(method -> method.getSimpleName().contentEquals(setterName))
+                .filter(method -> method.getModifiers().contains(Modifier.PUBLIC) && !method.getModifiers().contains(Modifier.STATIC))
+                .filter(method -> method.getParameters().size() == 1)
+                .filter(method -> processingEnv.getTypeUtils().isSameType(method.getParameters().get(0).asType(), getter.getReturnType()))
+                .findFirst();
+    }
+
+    private static String propertySuffix(ExecutableElement getter) {
+        String name = getter.getSimpleName().toString();
+        if (name.startsWith("get") && name.length() > 3) {
+            return name.substring(3);
+        }
+        if (name.startsWith("is") && name.length() > 2 && getter.getReturnType().getKind() == TypeKind.BOOLEAN) {
+            return name.substring(2);
+        }
+        return null;
+    }
+
+    private static String propertyName(ExecutableElement getter) {
+        String suffix = propertySuffix(getter);
+        return Character.toLowerCase(suffix.charAt(0)) + suffix.substring(1);
+    }
+
+    // Primitives are mapped to their boxed type, method references box and unbox the getter and setter
+    private String typeLiteral(TypeMirror type) {
+        if (type.getKind().isPrimitive()) {
+            return processingEnv.getTypeUtils().boxedClass((javax.lang.model.type.PrimitiveType) type).getQualifiedName() + ".class";
+        }
+        if (type.getKind() == TypeKind.ARRAY) {
+            return type + ".class";
+        }
+        if (type instanceof DeclaredType declared && declared.getTypeArguments().isEmpty()) {
+            return ((TypeElement) declared.asElement()).getQualifiedName() + ".class";
+        }
+        return null;
+    }
+
+    private Optional<String> indexNames(ExecutableElement getter, ExecutableElement setter, String annotation) {
+        return annotationValue(getter, annotation, "indexNames")
+                .or(() -> annotationValue(setter, annotation, "indexNames"))
+                .map(value -> {
+                    @SuppressWarnings("unchecked")
+                    List<? extends AnnotationValue> names = (List<? extends AnnotationValue>) value.getValue();
+                    return "java.util.List.of(" + names.stream()
+                            .map(name -> "\"" + name.getValue() + "\"")
+                            .collect(Collectors.joining(", ")) + ")";
+                });
+    }
+
+    private static Optional<AnnotationValue> annotationValue(ExecutableElement method, String annotation, String member) {
+        for (AnnotationMirror mirror : method.getAnnotationMirrors()) {
+            if (annotationName(mirror).equals(annotation)) {
+                for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : mirror.getElementValues().entrySet()) {
+                    if (entry.getKey().getSimpleName().contentEquals(member)) {
+                        return Optional.of(entry.getValue());
+                    }
+                }
+            }
+        }
+        return Optional.empty();
+    }
+
+    private static boolean hasAnnotation(ExecutableElement getter, ExecutableElement setter, String annotation) {
+        return Stream.concat(getter.getAnnotationMirrors().stream(), setter.getAnnotationMirrors().stream())
+                .anyMatch(mirror -> annotationName(mirror).equals(annotation));
+    }
+
+    private static String annotationName(AnnotationMirror mirror) {
+        return ((TypeElement) mirror.getAnnotationType().asElement()).getQualifiedName().toString();
+    }
+
+    private static boolean isObjectMethod(ExecutableElement method) {
+        return ((TypeElement) method.getEnclosingElement()).getQualifiedName().contentEquals("java.lang.Object");
+    }
+
+    private static boolean hasPublicNoArgConstructor(TypeElement bean) {
+        return ElementFilter.constructorsIn(bean.getEnclosedElements()).stream()
+                .anyMatch(constructor -> constructor.getModifiers().contains(Modifier.PUBLIC) && constructor.getParameters().isEmpty());
+    }
+
+    private void error(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+}
@@ -6,41 +6,55 @@ import software.amazon.awscdk.Stack;
 import software.amazon.awscdk.StackProps;
 import software.amazon.awscdk.services.dynamodb.Attribute;
 import software.amazon.awscdk.services.dynamodb.AttributeType;
+import software.amazon.awscdk.services.dynamodb.BillingMode;
+import software.amazon.awscdk.services.dynamodb.EnableScalingProps;
+import software.amazon.awscdk.services.dynamodb.UtilizationScalingProps;
 import software.amazon.awscdk.services.dynamodb.Table;
 import software.amazon.awscdk.services.lambda.Runtime;
 import software.amazon.awscdk.services.lambda.*;
 import software.amazon.awscdk.services.lambda.eventsources.SqsEventSource;
+import software.amazon.awscdk.services.lambda.eventsources.SqsEventSourceProps;
 import software.amazon.awscdk.services.s3.Bucket;
+import software.amazon.awscdk.services.s3.LifecycleRule;
 import software.amazon.awscdk.services.sqs.Queue;
 import software.constructs.Construct;
 
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 public class InfraStack extends Stack {
 
     public InfraStack(final Construct scope, final String id, final StackProps props) {
         super(scope, id, props);
-        String path = System.getenv("LAMBDA_PATH") != null ? System.getenv("LAMBDA_PATH") : "devoxxlambda-1.0.0.jar";
-                String endpoint = System.getProperty("ENDPOINT");
+        StackConfig config = StackConfig.load(this);
+        String endpoint = System.getProperty("ENDPOINT");
         String systemTest = System.getenv("SYSTEM_TEST") != null ? System.getenv("SYSTEM_TEST") : System.getProperty("SYSTEM_TEST");
 
-        Table table = createTable();
+        Table table = createTable(config);
 
-        Queue queue = createSqsQueue();
+        Queue queue = createSqsQueue(config);
+
+        Bucket importBucket = createImportBucket();
 
         Function.Builder lambdaBuilder = Function.Builder.create(this, "DevoxxLambda")
                 .functionName("DevoxxLambda")
-                .runtime(Runtime.JAVA_17)
-                .handler("com.devoxx.DevoxxLambda::handleRequest")
-                .memorySize(1024)
-                .timeout(Duration.seconds(30))
-                .environment(createMap(endpoint, table));
+                // The bootstrap of the native executable reads the handler from _HANDLER
+                .runtime(config.nativeRuntime() ? Runtime.PROVIDED_AL2023 : Runtime.JAVA_17)
+                .handler(config.handler())
+                .memorySize(config.memorySize())
+                .timeout(Duration.seconds(config.timeoutSeconds()))
+                .environment(createMap(endpoint, table, config));
 
         if (systemTest == null) {
-            Function lambda = lambdaBuilder
-                    .code(determinePath(systemTest, path, null))
-                    .architecture(Architecture.ARM_64)
-                    .snapStart(SnapStartConf.ON_PUBLISHED_VERSIONS).build();
+            lambdaBuilder
+                    .code(determinePath(systemTest, config.lambdaPath(), null))
+                    .architecture(config.architecture());
+            // SnapStart is only offered for managed runtimes, the native executable starts without it
+            if (!config.nativeRuntime()) {
+                lambdaBuilder.snapStart(SnapStartConf.ON_PUBLISHED_VERSIONS);
+            }
+            Function lambda = lambdaBuilder.build();
 
             Version version = Version.Builder.create(this, "JavaLambdaVersion1")
                     .lambda(lambda)
@@ -48,39 +62,77 @@ public class InfraStack extends Stack {
                     .build();
 
 
-            Alias alias = Alias.Builder.create(this, "ProdAlias")
+            Alias.Builder aliasBuilder = Alias.Builder.create(this, "ProdAlias")
                     .aliasName("prod")
-                    .version(version)
-                    .build();
+                    .version(version);
+            if (config.provisionedConcurrency() > 0) {
+                aliasBuilder.provisionedConcurrentExecutions(config.provisionedConcurrency());
+            }
+            Alias alias = aliasBuilder.build();
 
-            addIamRightsAndSubscribeAliasToSqs(table, alias, queue);
+            importBucket.grantRead(alias);
+            addIamRightsAndSubscribeAliasToSqs(table, alias, queue, config);
+            createReadLambda(table, endpoint, config);
         } else {
             Bucket lambdaBucket = createJarLambda();
-            Function lambda = lambdaBuilder.code(determinePath(systemTest, path, lambdaBucket)).build();
-            addIamRightsAndSubscribeLambdaToSqs(table, lambda, queue, lambdaBucket);
+            Function lambda = lambdaBuilder.code(determinePath(systemTest, config.lambdaPath(), lambdaBucket)).build();
+            importBucket.grantRead(lambda);
+            addIamRightsAndSubscribeLambdaToSqs(table, lambda, queue, lambdaBucket, config);
         }
 
     }
 
+    // Item lookups for the other services, invoked directly through the prod alias. Same code and sizing as the SQS
+    // handler. The handler primes itself before the snapshot and rebuilds its client after a restore, so it gets
+    // SnapStart like the SQS handler, which only applies to published versions. No provisioned concurrency.
+    private void createReadLambda(Table table, String endpoint, StackConfig config) {
+        Function.Builder readLambdaBuilder = Function.Builder.create(this, "DevoxxReadLambda")
+                .functionName("DevoxxReadLambda")
+                .runtime(config.nativeRuntime() ? Runtime.PROVIDED_AL2023 : Runtime.JAVA_17)
+                .handler("com.devoxx.DevoxxReadLambda::handleRequest")
+                .memorySize(config.memorySize())
+                .timeout(Duration.seconds(config.timeoutSeconds()))
+                .environment(createMap(endpoint, table, config))
+                .code(Code.fromAsset(config.lambdaPath()))
+                .architecture(config.architecture());
+        if (!config.nativeRuntime()) {
+            readLambdaBuilder.snapStart(SnapStartConf.ON_PUBLISHED_VERSIONS);
+        }
+        Function readLambda = readLambdaBuilder.build();
+
+        Version version = Version.Builder.create(this, "ReadLambdaVersion1")
+                .lambda(readLambda)
+                .description("Published AWS Lambda Version")
+                .build();
+        Alias alias = Alias.Builder.create(this, "ReadProdAlias")
+                .aliasName("prod")
+                .version(version)
+                .build();
+        table.grantReadData(alias);
+
+        software.amazon.awscdk.CfnOutput.Builder.create(this, "ReadFunctionArn")
+                .value(alias.getFunctionArn())
+                .build();
+    }
+
     @NotNull
     private static Code determinePath(String systemTest, String path, Bucket lambdaBucket) {
         return systemTest == null ? Code.fromAsset(path) : Code.fromBucket(lambdaBucket, "devoxxlambda-1.0.0.jar");
     }
 
-    private Map<String, String> createMap(String endpoint, Table table) {
+    private Map<String, String> createMap(String endpoint, Table table, StackConfig config) {
+        Map<String, String> environment = new HashMap<>();
+        environment.put("TABLE_NAME", table.getTableName());
+        if (!config.nativeRuntime()) {
+            // The managed Java runtimes only pick up JVM flags from JAVA_TOOL_OPTIONS, JAVA_OPTIONS is ignored
+            environment.put("JAVA_TOOL_OPTIONS", config.javaOptions());
+        }
         if (endpoint != null) {
-           return Map.of(
-                    "TABLE_NAME", table.getTableName(),
-                    "ENDPOINT", endpoint,
-                    "JAVA_OPTIONS", "-XX:+TieredCompilation -XX:TieredStopAtLevel=1"
-            );
-        } else {
-            return Map.of(
-                    "TABLE_NAME", table.getTableName(),
-                    "JAVA_OPTIONS", "-XX:+TieredCompilation -XX:TieredStopAtLevel=1"
-            );
+            environment.put("ENDPOINT", endpoint);
         }
-
+        // Write sharding, stock totals, processing mode, idempotency, event logging and HTTP client
+        environment.putAll(config.handlerEnvironment());
+        return environment;
     }
 
     @NotNull
@@ -90,16 +142,33 @@ public class InfraStack extends Stack {
                 .build();
     }
 
+    // Claim check imports: producers upload NDJSON (optionally gzip) objects and only send their location.
+    // Imported objects are not needed afterwards.
     @NotNull
-    private Queue createSqsQueue() {
+    private Bucket createImportBucket() {
+        Bucket bucket = Bucket.Builder.create(this, "ImportBucket")
+                .lifecycleRules(List.of(LifecycleRule.builder()
+                        .expiration(Duration.days(7))
+                        .build()))
+                .build();
+        software.amazon.awscdk.CfnOutput.Builder.create(this, "ImportBucketName")
+                .value(bucket.getBucketName())
+                .build();
+        return bucket;
+    }
+
+    @NotNull
+    private Queue createSqsQueue(StackConfig config) {
         return Queue.Builder.create(this, "ItemQueue")
                 .queueName("ItemQueue")
-                .visibilityTimeout(Duration.seconds(30))
+                .visibilityTimeout(Duration.seconds(config.visibilityTimeoutSeconds()))
                 .build();
     }
 
-    private Table createTable() {
-        return Table.Builder.create(this, "ItemsTable")
+    // With WRITE_SHARDS the companyId values carry a #<shard> suffix, the key schema stays the same
+    // so items written without sharding remain readable
+    private Table createTable(StackConfig config) {
+        Table.Builder builder = Table.Builder.create(this, "ItemsTable")
                 .tableName("Items")
                 .partitionKey(Attribute.builder()
                         .name("companyId")
@@ -109,14 +178,58 @@ public class InfraStack extends Stack {
                         .name("uuid")
                         .type(AttributeType.STRING)
                         .build())
+                // Only claim check checkpoints carry a ttl
+                .timeToLiveAttribute("ttl")
+                .billingMode(config.billingMode());
+        if (config.billingMode() == BillingMode.PAY_PER_REQUEST) {
+            return builder.build();
+        }
+        Table table = builder
+                .readCapacity(config.readCapacity())
+                .writeCapacity(config.writeCapacity())
                 .build();
+        // Provisioned capacity follows the load between the configured and the max capacity
+        if (config.maxReadCapacity() > config.readCapacity()) {
+            table.autoScaleReadCapacity(EnableScalingProps.builder()
+                    .minCapacity(config.readCapacity())
+                    .maxCapacity(config.maxReadCapacity())
+                    .build())
+                    .scaleOnUtilization(UtilizationScalingProps.builder()
+                            .targetUtilizationPercent(config.targetUtilizationPercent())
+                            .build());
+        }
+        if (config.maxWriteCapacity() > config.writeCapacity()) {
+            table.autoScaleWriteCapacity(EnableScalingProps.builder()
+                    .minCapacity(config.writeCapacity())
+                    .maxCapacity(config.maxWriteCapacity())
+                    .build())
+                    .scaleOnUtilization(UtilizationScalingProps.builder()
+                            .targetUtilizationPercent(config.targetUtilizationPercent())
+                            .build());
+        }
+        return table;
+    }
+
+    // With reportBatchItemFailures the Lambda returns the failed messageIds, so only those messages are redelivered.
+    // Bigger batches and a batching window trade latency for fewer, larger invocations.
+    private static SqsEventSource createSqsEventSource(Queue queue, StackConfig config) {
+        SqsEventSourceProps.Builder props = SqsEventSourceProps.builder()
+                .batchSize(config.batchSize())
+                .reportBatchItemFailures(config.reportBatchItemFailures());
+        if (config.maxBatchingWindowSeconds() > 0) {
+            props.maxBatchingWindow(Duration.seconds(config.maxBatchingWindowSeconds()));
+        }
+        if (config.maxConcurrency() > 0) {
+            props.maxConcurrency(config.maxConcurrency());
+        }
+        return new SqsEventSource(queue, props.build());
     }
 
-    private void addIamRightsAndSubscribeAliasToSqs(Table table, Alias alias, Queue queue) {
+    private void addIamRightsAndSubscribeAliasToSqs(Table table, Alias alias, Queue queue, StackConfig config) {
         table.grantReadWriteData(alias);
         queue.grantConsumeMessages(alias);
 
-        alias.addEventSource(new SqsEventSource(queue));
+        alias.addEventSource(createSqsEventSource(queue, config));
 
         software.amazon.awscdk.CfnOutput.Builder.create(this, "TableName")
                 .value(table.getTableName())
@@ -127,11 +240,12 @@ public class InfraStack extends Stack {
                 .build();
     }
 
-    private void addIamRightsAndSubscribeLambdaToSqs(Table table, Function lambda, Queue queue, Bucket lambdaBucket) {
+    private void addIamRightsAndSubscribeLambdaToSqs(Table table, Function lambda, Queue queue, Bucket lambdaBucket,
+                                                     StackConfig config) {
         table.grantReadWriteData(lambda);
         queue.grantConsumeMessages(lambda);
 
-        lambda.addEventSource(new SqsEventSource(queue));
+        lambda.addEventSource(createSqsEventSource(queue, config));
 
         software.amazon.awscdk.CfnOutput.Builder.create(this, "TableName")
                 .value(table.getTableName())
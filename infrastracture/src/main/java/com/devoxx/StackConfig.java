@@ -0,0 +1,204 @@
+package com.devoxx;
+
+import software.amazon.awscdk.services.dynamodb.BillingMode;
+import software.amazon.awscdk.services.lambda.Architecture;
+import software.constructs.Construct;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Tunables of the stack. Every setting is read from CDK context first (cdk deploy -c batchSize=1000),
+// then from its environment variable or system property (SQS_BATCH_SIZE=1000), then the default.
+// The defaults are the values the stack used before it was configurable, with one change: the queue's visibility
+// timeout was the SQS default of 30 s, as long as the function timeout, and is now visibilityTimeoutSeconds().
+// The handler settings are passed to both functions as environment variables under the names the handlers read,
+// their defaults are the handlers' own.
+public record StackConfig(
+        String lambdaPath,
+        String handler,
+        // provided.al2023 with the native executable (mvn package -Pnative) instead of the Java 17 runtime
+        boolean nativeRuntime,
+        // SQS event source: up to 10000 records per invocation, more than 10 needs a batching window
+        int batchSize,
+        int maxBatchingWindowSeconds,
+        // Concurrent invocations the event source may start, 0 leaves it unbounded
+        int maxConcurrency,
+        boolean reportBatchItemFailures,
+        // Function sizing
+        int memorySize,
+        int timeoutSeconds,
+        Architecture architecture,
+        String javaOptions,
+        // Pre-initialized environments of the prod alias, 0 for none
+        int provisionedConcurrency,
+        // Table capacity: PAY_PER_REQUEST, or PROVISIONED with autoscaling up to the max capacities
+        BillingMode billingMode,
+        int readCapacity,
+        int writeCapacity,
+        int maxReadCapacity,
+        int maxWriteCapacity,
+        int targetUtilizationPercent,
+        // Handler settings: partitions per companyId, per company stock totals
+        int writeShards,
+        boolean inventoryAggregates,
+        // SEQUENTIAL or CONCURRENT message processing, and the messages in flight for CONCURRENT
+        String processingMode,
+        int processingConcurrency,
+        // Per container dedup of redelivered items, and content hash conditioned puts across containers
+        int idempotencyCacheSize,
+        int idempotencyCacheTtlSeconds,
+        boolean idempotencyConditionalWrites,
+        // Share of invocations that log the whole SQS event, 0 to 1
+        double eventLogSampleRate,
+        // URL_CONNECTION or CRT
+        String httpClient) {
+
+    public static final int MAX_BATCH_SIZE = 10000;
+    private static final int MAX_BATCH_SIZE_WITHOUT_WINDOW = 10;
+
+    public StackConfig {
+        if (batchSize < 1 || batchSize > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("batchSize must be between 1 and " + MAX_BATCH_SIZE + ": " + batchSize);
+        }
+        if (batchSize > MAX_BATCH_SIZE_WITHOUT_WINDOW && maxBatchingWindowSeconds == 0) {
+            throw new IllegalArgumentException("batchSize above " + MAX_BATCH_SIZE_WITHOUT_WINDOW
+                    + " needs maxBatchingWindow");
+        }
+        if (maxBatchingWindowSeconds < 0 || maxBatchingWindowSeconds > 300) {
+            throw new IllegalArgumentException("maxBatchingWindow must be between 0 and 300 seconds: " + maxBatchingWindowSeconds);
+        }
+        if (maxConcurrency != 0 && (maxConcurrency < 2 || maxConcurrency > 1000)) {
+            throw new IllegalArgumentException("maxConcurrency must be between 2 and 1000: " + maxConcurrency);
+        }
+        if (memorySize < 128 || memorySize > 10240) {
+            throw new IllegalArgumentException("memorySize must be between 128 and 10240 MB: " + memorySize);
+        }
+        if (timeoutSeconds < 1 || timeoutSeconds > 900) {
+            throw new IllegalArgumentException("timeout must be between 1 and 900 seconds: " + timeoutSeconds);
+        }
+        if (billingMode == BillingMode.PROVISIONED && (maxReadCapacity != 0 && maxReadCapacity < readCapacity
+                || maxWriteCapacity != 0 && maxWriteCapacity < writeCapacity)) {
+            throw new IllegalArgumentException("max capacities must not be below the provisioned capacities");
+        }
+        if (writeShards < 1) {
+            throw new IllegalArgumentException("writeShards must be at least 1: " + writeShards);
+        }
+        if (!processingMode.equals("SEQUENTIAL") && !processingMode.equals("CONCURRENT")) {
+            throw new IllegalArgumentException("Unknown processingMode: " + processingMode);
+        }
+        if (processingConcurrency < 1) {
+            throw new IllegalArgumentException("processingConcurrency must be at least 1: " + processingConcurrency);
+        }
+        if (idempotencyCacheSize < 0 || idempotencyCacheTtlSeconds < 0) {
+            throw new IllegalArgumentException("idempotency cache size and ttl must not be negative");
+        }
+        if (eventLogSampleRate < 0 || eventLogSampleRate > 1) {
+            throw new IllegalArgumentException("eventLogSampleRate must be between 0 and 1: " + eventLogSampleRate);
+        }
+        if (!httpClient.equals("URL_CONNECTION") && !httpClient.equals("CRT")) {
+            throw new IllegalArgumentException("Unknown httpClient: " + httpClient);
+        }
+    }
+
+    private static final String JAVA_OPTIONS = "-XX:+TieredCompilation -XX:TieredStopAtLevel=1";
+    // Written next to the classes by mvn package -Pappcds. A missing archive switches off class data sharing
+    // altogether, the JDK's own archive included, so it is only passed for the zip that carries it.
+    private static final String APP_CDS_OPTION = " -XX:SharedArchiveFile=/var/task/devoxxlambda.jsa";
+
+    public static StackConfig load(Construct scope) {
+        boolean nativeRuntime = nativeRuntime(get(scope, "runtime", "LAMBDA_RUNTIME", "java"));
+        String lambdaPath = get(scope, "lambdaPath", "LAMBDA_PATH",
+                nativeRuntime ? "devoxxlambda-1.0.0-native.zip" : "devoxxlambda-1.0.0.jar");
+        return new StackConfig(
+                lambdaPath,
+                // com.devoxx.DevoxxStreamLambda::handleRequest selects the streaming fast path
+                get(scope, "handler", "LAMBDA_HANDLER", "com.devoxx.DevoxxLambda::handleRequest"),
+                nativeRuntime,
+                getInt(scope, "batchSize", "SQS_BATCH_SIZE", 10),
+                getInt(scope, "maxBatchingWindow", "SQS_MAX_BATCHING_WINDOW", 0),
+                getInt(scope, "maxConcurrency", "SQS_MAX_CONCURRENCY", 0),
+                Boolean.parseBoolean(get(scope, "reportBatchItemFailures", "SQS_REPORT_BATCH_ITEM_FAILURES", "true")),
+                getInt(scope, "memorySize", "LAMBDA_MEMORY_SIZE", 1024),
+                getInt(scope, "timeout", "LAMBDA_TIMEOUT", 30),
+                architecture(get(scope, "architecture", "LAMBDA_ARCHITECTURE", "arm64")),
+                get(scope, "javaOptions", "LAMBDA_JAVA_OPTIONS",
+                        lambdaPath.endsWith(".zip") ? JAVA_OPTIONS + APP_CDS_OPTION : JAVA_OPTIONS),
+                getInt(scope, "provisionedConcurrency", "LAMBDA_PROVISIONED_CONCURRENCY", 0),
+                BillingMode.valueOf(get(scope, "billingMode", "TABLE_BILLING_MODE", "PROVISIONED").toUpperCase()),
+                getInt(scope, "readCapacity", "TABLE_READ_CAPACITY", 5),
+                getInt(scope, "writeCapacity", "TABLE_WRITE_CAPACITY", 5),
+                getInt(scope, "maxReadCapacity", "TABLE_MAX_READ_CAPACITY", 0),
+                getInt(scope, "maxWriteCapacity", "TABLE_MAX_WRITE_CAPACITY", 0),
+                getInt(scope, "targetUtilization", "TABLE_TARGET_UTILIZATION", 70),
+                getInt(scope, "writeShards", "WRITE_SHARDS", 1),
+                Boolean.parseBoolean(get(scope, "inventoryAggregates", "INVENTORY_AGGREGATES", "false")),
+                get(scope, "processingMode", "PROCESSING_MODE", "SEQUENTIAL").toUpperCase(),
+                getInt(scope, "processingConcurrency", "MAX_CONCURRENCY", 4),
+                getInt(scope, "idempotencyCacheSize", "IDEMPOTENCY_CACHE_SIZE", 10000),
+                getInt(scope, "idempotencyCacheTtl", "IDEMPOTENCY_CACHE_TTL_SECONDS", 300),
+                Boolean.parseBoolean(get(scope, "idempotencyConditionalWrites", "IDEMPOTENCY_CONDITIONAL_WRITES", "false")),
+                getDouble(scope, "eventLogSampleRate", "EVENT_LOG_SAMPLE_RATE", 0),
+                get(scope, "httpClient", "HTTP_CLIENT", "URL_CONNECTION").toUpperCase());
+    }
+
+    // The handler settings under the environment variable names the handlers read
+    public Map<String, String> handlerEnvironment() {
+        Map<String, String> environment = new LinkedHashMap<>();
+        environment.put("WRITE_SHARDS", String.valueOf(writeShards));
+        environment.put("INVENTORY_AGGREGATES", String.valueOf(inventoryAggregates));
+        environment.put("PROCESSING_MODE", processingMode);
+        environment.put("MAX_CONCURRENCY", String.valueOf(processingConcurrency));
+        environment.put("IDEMPOTENCY_CACHE_SIZE", String.valueOf(idempotencyCacheSize));
+        environment.put("IDEMPOTENCY_CACHE_TTL_SECONDS", String.valueOf(idempotencyCacheTtlSeconds));
+        environment.put("IDEMPOTENCY_CONDITIONAL_WRITES", String.valueOf(idempotencyConditionalWrites));
+        environment.put("EVENT_LOG_SAMPLE_RATE", String.valueOf(eventLogSampleRate));
+        environment.put("HTTP_CLIENT", httpClient);
+        return environment;
+    }
+
+    // SQS recommends six times the function timeout plus the batching window, so a batch that is still
+    // retried by the Lambda service is not handed out a second time
+    public int visibilityTimeoutSeconds() {
+        return 6 * timeoutSeconds + maxBatchingWindowSeconds;
+    }
+
+    private static boolean nativeRuntime(String name) {
+        return switch (name.toLowerCase()) {
+            case "java" -> false;
+            case "native" -> true;
+            default -> throw new IllegalArgumentException("Unknown runtime: " + name);
+        };
+    }
+
+    private static Architecture architecture(String name) {
+        return switch (name.toLowerCase()) {
+            case "arm64", "arm_64" -> Architecture.ARM_64;
+            case "x86_64", "x86" -> Architecture.X86_64;
+            default -> throw new IllegalArgumentException("Unknown architecture: " + name);
+        };
+    }
+
+    private static String get(Construct scope, String contextKey, String envName, String defaultValue) {
+        Object context = scope.getNode().tryGetContext(contextKey);
+        if (context != null) {
+            return String.valueOf(context);
+        }
+        String value = System.getenv(envName) != null ? System.getenv(envName) : System.getProperty(envName);
+        return value != null && !value.isBlank() ? value : defaultValue;
+    }
+
+    // Numbers in cdk.json arrive as numbers, -c values as strings
+    private static int getInt(Construct scope, String contextKey, String envName, int defaultValue) {
+        if (scope.getNode().tryGetContext(contextKey) instanceof Number number) {
+            return number.intValue();
+        }
+        return Integer.parseInt(get(scope, contextKey, envName, String.valueOf(defaultValue)));
+    }
+
+    private static double getDouble(Construct scope, String contextKey, String envName, double defaultValue) {
+        if (scope.getNode().tryGetContext(contextKey) instanceof Number number) {
+            return number.doubleValue();
+        }
+        return Double.parseDouble(get(scope, contextKey, envName, String.valueOf(defaultValue)));
+    }
+}
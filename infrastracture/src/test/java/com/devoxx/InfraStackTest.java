@@ -0,0 +1,250 @@
+package com.devoxx;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import software.amazon.awscdk.App;
+import software.amazon.awscdk.assertions.Match;
+import software.amazon.awscdk.assertions.Template;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Synthesizes the production variant of the stack with different context values, no deployment needed
+class InfraStackTest {
+
+    @TempDir
+    Path lambdaPath;
+
+    @BeforeEach
+    public void setup() {
+        // Set by IntegrationBaseTest for the system test variant
+        System.clearProperty("SYSTEM_TEST");
+        System.clearProperty("ENDPOINT");
+    }
+
+    @Test
+    public void synth_GivenNoSettings_ShouldKeepDefaults() {
+        Template template = synth(Map.of());
+
+        template.hasResourceProperties("AWS::Lambda::EventSourceMapping", Map.of(
+                "BatchSize", 10,
+                "FunctionResponseTypes", List.of("ReportBatchItemFailures"),
+                "MaximumBatchingWindowInSeconds", Match.absent(),
+                "ScalingConfig", Match.absent()));
+        template.hasResourceProperties("AWS::Lambda::Function", Map.of(
+                "MemorySize", 1024,
+                "Timeout", 30,
+                "Architectures", List.of("arm64"),
+                "Environment", Map.of("Variables", Match.objectLike(Map.of(
+                        "JAVA_TOOL_OPTIONS", "-XX:+TieredCompilation -XX:TieredStopAtLevel=1",
+                        "WRITE_SHARDS", "1",
+                        "INVENTORY_AGGREGATES", "false",
+                        "PROCESSING_MODE", "SEQUENTIAL",
+                        "MAX_CONCURRENCY", "4",
+                        "IDEMPOTENCY_CACHE_SIZE", "10000",
+                        "IDEMPOTENCY_CACHE_TTL_SECONDS", "300",
+                        "IDEMPOTENCY_CONDITIONAL_WRITES", "false",
+                        "EVENT_LOG_SAMPLE_RATE", "0.0",
+                        "HTTP_CLIENT", "URL_CONNECTION")))));
+        template.hasResourceProperties("AWS::Lambda::Alias", Map.of(
+                "ProvisionedConcurrencyConfig", Match.absent()));
+        template.hasResourceProperties("AWS::DynamoDB::Table", Map.of(
+                "ProvisionedThroughput", Map.of("ReadCapacityUnits", 5, "WriteCapacityUnits", 5)));
+        template.hasResourceProperties("AWS::SQS::Queue", Map.of("VisibilityTimeout", 180));
+        template.resourceCountIs("AWS::ApplicationAutoScaling::ScalableTarget", 0);
+    }
+
+    @Test
+    public void synth_GivenEventSourceSettings_ShouldConfigureEventSourceMapping() {
+        Template template = synth(Map.of(
+                "batchSize", "10000",
+                "maxBatchingWindow", "5",
+                "maxConcurrency", "50",
+                "reportBatchItemFailures", "false"));
+
+        template.hasResourceProperties("AWS::Lambda::EventSourceMapping", Map.of(
+                "BatchSize", 10000,
+                "MaximumBatchingWindowInSeconds", 5,
+                "ScalingConfig", Map.of("MaximumConcurrency", 50),
+                "FunctionResponseTypes", Match.absent()));
+        template.hasResourceProperties("AWS::SQS::Queue", Map.of("VisibilityTimeout", 185));
+    }
+
+    @Test
+    public void synth_GivenFunctionSettings_ShouldSizeFunction() {
+        Template template = synth(Map.of(
+                "memorySize", 2048,
+                "timeout", 60,
+                "architecture", "x86_64",
+                "javaOptions", "-XX:+UseSerialGC"));
+
+        template.hasResourceProperties("AWS::Lambda::Function", Map.of(
+                "MemorySize", 2048,
+                "Timeout", 60,
+                "Architectures", List.of("x86_64"),
+                "Environment", Map.of("Variables", Match.objectLike(Map.of("JAVA_TOOL_OPTIONS", "-XX:+UseSerialGC")))));
+        template.hasResourceProperties("AWS::SQS::Queue", Map.of("VisibilityTimeout", 360));
+    }
+
+    @Test
+    public void synth_GivenAppCdsZip_ShouldUseSharedArchive() throws Exception {
+        Path zip = Files.createFile(lambdaPath.resolve("devoxxlambda-1.0.0-lambda.zip"));
+        Template template = synth(Map.of("lambdaPath", zip.toString()));
+
+        template.hasResourceProperties("AWS::Lambda::Function", Map.of(
+                "Environment", Map.of("Variables", Match.objectLike(Map.of("JAVA_TOOL_OPTIONS",
+                        "-XX:+TieredCompilation -XX:TieredStopAtLevel=1 -XX:SharedArchiveFile=/var/task/devoxxlambda.jsa")))));
+    }
+
+    @Test
+    public void synth_GivenNoSettings_ShouldAddReadLambdaWithSnapStartAlias() {
+        Template template = synth(Map.of());
+
+        template.hasResourceProperties("AWS::Lambda::Function", Map.of(
+                "FunctionName", "DevoxxReadLambda",
+                "Handler", "com.devoxx.DevoxxReadLambda::handleRequest",
+                "SnapStart", Map.of("ApplyOn", "PublishedVersions")));
+        template.resourceCountIs("AWS::Lambda::Version", 2);
+        template.resourceCountIs("AWS::Lambda::Alias", 2);
+    }
+
+    @Test
+    public void synth_GivenNativeRuntime_ShouldUseCustomRuntimeWithoutSnapStart() {
+        Template template = synth(Map.of("runtime", "native"));
+
+        template.hasResourceProperties("AWS::Lambda::Function", Map.of(
+                "Runtime", "provided.al2023",
+                "Handler", "com.devoxx.DevoxxLambda::handleRequest",
+                "SnapStart", Match.absent(),
+                "Environment", Map.of("Variables", Match.objectLike(Map.of("JAVA_TOOL_OPTIONS", Match.absent())))));
+    }
+
+    @Test
+    public void synth_GivenProvisionedConcurrency_ShouldConfigureProdAlias() {
+        Template template = synth(Map.of("provisionedConcurrency", "5"));
+
+        template.hasResourceProperties("AWS::Lambda::Alias", Map.of(
+                "Name", "prod",
+                "ProvisionedConcurrencyConfig", Map.of("ProvisionedConcurrentExecutions", 5)));
+    }
+
+    @Test
+    public void synth_GivenPayPerRequest_ShouldCreateOnDemandTable() {
+        Template template = synth(Map.of("billingMode", "pay_per_request"));
+
+        template.hasResourceProperties("AWS::DynamoDB::Table", Map.of(
+                "BillingMode", "PAY_PER_REQUEST",
+                "ProvisionedThroughput", Match.absent()));
+    }
+
+    @Test
+    public void synth_GivenMaxWriteCapacity_ShouldAutoscaleWrites() {
+        Template template = synth(Map.of("writeCapacity", "10", "maxWriteCapacity", "200", "targetUtilization", "60"));
+
+        template.resourceCountIs("AWS::ApplicationAutoScaling::ScalableTarget", 1);
+        template.hasResourceProperties("AWS::ApplicationAutoScaling::ScalableTarget", Map.of(
+                "MinCapacity", 10,
+                "MaxCapacity", 200,
+                "ScalableDimension", "dynamodb:table:WriteCapacityUnits"));
+        template.hasResourceProperties("AWS::ApplicationAutoScaling::ScalingPolicy", Map.of(
+                "TargetTrackingScalingPolicyConfiguration", Match.objectLike(Map.of("TargetValue", 60))));
+    }
+
+    @Test
+    public void synth_GivenBatchSizeAboveTenWithoutWindow_ShouldFail() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> synth(Map.of("batchSize", "100")));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> synth(Map.of("batchSize", "10001", "maxBatchingWindow", "5")));
+    }
+
+    @Test
+    public void synth_GivenWriteShards_ShouldPassThemToBothHandlers() {
+        Template template = synth(Map.of("writeShards", 8));
+
+        assertHandlerEnvironment(template, "WRITE_SHARDS", "8");
+    }
+
+    @Test
+    public void synth_GivenInventoryAggregates_ShouldPassThemToBothHandlers() {
+        Template template = synth(Map.of("inventoryAggregates", "true"));
+
+        assertHandlerEnvironment(template, "INVENTORY_AGGREGATES", "true");
+    }
+
+    @Test
+    public void synth_GivenProcessingMode_ShouldPassItToBothHandlers() {
+        Template template = synth(Map.of("processingMode", "concurrent"));
+
+        assertHandlerEnvironment(template, "PROCESSING_MODE", "CONCURRENT");
+    }
+
+    @Test
+    public void synth_GivenProcessingConcurrency_ShouldPassItAsMaxConcurrency() {
+        Template template = synth(Map.of("processingConcurrency", "16"));
+
+        assertHandlerEnvironment(template, "MAX_CONCURRENCY", "16");
+    }
+
+    @Test
+    public void synth_GivenIdempotencyCacheSize_ShouldPassItToBothHandlers() {
+        Template template = synth(Map.of("idempotencyCacheSize", "0"));
+
+        assertHandlerEnvironment(template, "IDEMPOTENCY_CACHE_SIZE", "0");
+    }
+
+    @Test
+    public void synth_GivenIdempotencyCacheTtl_ShouldPassItToBothHandlers() {
+        Template template = synth(Map.of("idempotencyCacheTtl", "60"));
+
+        assertHandlerEnvironment(template, "IDEMPOTENCY_CACHE_TTL_SECONDS", "60");
+    }
+
+    @Test
+    public void synth_GivenIdempotencyConditionalWrites_ShouldPassThemToBothHandlers() {
+        Template template = synth(Map.of("idempotencyConditionalWrites", "true"));
+
+        assertHandlerEnvironment(template, "IDEMPOTENCY_CONDITIONAL_WRITES", "true");
+    }
+
+    @Test
+    public void synth_GivenEventLogSampleRate_ShouldPassItToBothHandlers() {
+        Template template = synth(Map.of("eventLogSampleRate", 0.01));
+
+        assertHandlerEnvironment(template, "EVENT_LOG_SAMPLE_RATE", "0.01");
+    }
+
+    @Test
+    public void synth_GivenHttpClient_ShouldPassItToBothHandlers() {
+        Template template = synth(Map.of("httpClient", "crt"));
+
+        assertHandlerEnvironment(template, "HTTP_CLIENT", "CRT");
+    }
+
+    @Test
+    public void synth_GivenInvalidHandlerSettings_ShouldFail() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> synth(Map.of("writeShards", "0")));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> synth(Map.of("processingMode", "parallel")));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> synth(Map.of("eventLogSampleRate", "2")));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> synth(Map.of("httpClient", "apache")));
+    }
+
+    private static void assertHandlerEnvironment(Template template, String name, String value) {
+        for (String functionName : List.of("DevoxxLambda", "DevoxxReadLambda")) {
+            template.hasResourceProperties("AWS::Lambda::Function", Map.of(
+                    "FunctionName", functionName,
+                    "Environment", Map.of("Variables", Match.objectLike(Map.of(name, value)))));
+        }
+    }
+
+    private Template synth(Map<String, Object> settings) {
+        Map<String, Object> context = new HashMap<>(settings);
+        context.putIfAbsent("lambdaPath", lambdaPath.toString());
+        App app = App.Builder.create().context(context).build();
+        return Template.fromStack(new InfraStack(app, "InfraStack", null));
+    }
+}